@@ -0,0 +1,79 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.security.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verified per second by the authentication filter: the previous path, which rebuilt the
+ * key and the parser and parsed the token twice (validate, then read the username), against a
+ * single parse with the key and parser built once, with and without the verified-token cache.
+ * <p>
+ * All threads share one instance and one token, like request threads sharing the filter's
+ * {@link JwtUtils}, so a cache that serializes its readers shows up as lost throughput here.
+ * Compare with {@code -t 1} to see how each variant scales.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "mySecretKey12377657c2VjcmV0a2V5MTIzIT8kQCVEa2pYUmVuZEVuY29kZWQ=";
+
+    private JwtUtils uncached;
+    private JwtUtils cached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new JwtUtils(SECRET, 0, 300);
+        cached = new JwtUtils(SECRET, 10_000, 300);
+        token = Jwts.builder()
+                .subject("user1")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+
+    @Benchmark
+    public String validateThenParseRebuildingKey() {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+        SecretKey keyAgain = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser().verifyWith(keyAgain).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Benchmark
+    public String verifyOnce() {
+        Claims claims = uncached.verify(token);
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public String verifyOnceCached() {
+        Claims claims = cached.verify(token);
+        return claims.getSubject();
+    }
+}
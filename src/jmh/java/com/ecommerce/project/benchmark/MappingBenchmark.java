@@ -0,0 +1,138 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.mapper.AddressMapper;
+import com.ecommerce.project.mapper.CartMapper;
+import com.ecommerce.project.mapper.CategoryMapper;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.DTO.AddressDTO;
+import com.ecommerce.project.payload.DTO.CartDTO;
+import com.ecommerce.project.payload.DTO.CategoryDTO;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective ModelMapper path the services used before with the generated mappers,
+ * one mapped object per invocation. Run with {@code -prof gc} (the profile default) to get the
+ * bytes allocated per mapped object next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MappingBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+    private final CategoryMapper categoryMapper = Mappers.getMapper(CategoryMapper.class);
+    private final CartMapper cartMapper = Mappers.getMapper(CartMapper.class);
+    private final AddressMapper addressMapper = Mappers.getMapper(AddressMapper.class);
+
+    private Product product;
+    private ProductDTO productDTO;
+    private Category category;
+    private Cart cart;
+    private Address address;
+
+    @Setup
+    public void setUp() {
+        category = new Category(1L, "Electronics", new ArrayList<>());
+        product = new Product(42L, "Wireless Headphones", "default.png", "Over-ear, noise cancelling",
+                25, 199.0, 10.0, 179.1, category, null, new ArrayList<>());
+        category.getProducts().add(product);
+        productDTO = new ProductDTO(null, "Wireless Headphones", "Over-ear, noise cancelling",
+                null, 25, 199.0, 10.0, 0.0);
+
+        cart = new Cart(7L, null, new ArrayList<>(), 358.2);
+        cart.getCartItems().add(new CartItem(3L, cart, product, 2, 10.0, 179.1));
+
+        address = new Address("Baker Street", "Sherlock Holmes Museum", "London", "Greater London",
+                "United Kingdom", "NW16XE");
+        address.setAddressId(5L);
+    }
+
+    @Benchmark
+    public ProductDTO productToDtoModelMapper() {
+        return modelMapper.map(product, ProductDTO.class);
+    }
+
+    @Benchmark
+    public ProductDTO productToDtoMapStruct() {
+        return productMapper.toDTO(product);
+    }
+
+    @Benchmark
+    public Product productFromDtoModelMapper() {
+        return modelMapper.map(productDTO, Product.class);
+    }
+
+    @Benchmark
+    public Product productFromDtoMapStruct() {
+        return productMapper.toEntity(productDTO);
+    }
+
+    @Benchmark
+    public CategoryDTO categoryToDtoModelMapper() {
+        return modelMapper.map(category, CategoryDTO.class);
+    }
+
+    @Benchmark
+    public CategoryDTO categoryToDtoMapStruct() {
+        return categoryMapper.toDTO(category);
+    }
+
+    @Benchmark
+    public CartDTO cartToDtoModelMapper() {
+        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
+        List<ProductDTO> productDTOS = new ArrayList<>(cart.getCartItems().size());
+        for (CartItem item : cart.getCartItems()) {
+            ProductDTO dto = modelMapper.map(item.getProduct(), ProductDTO.class);
+            dto.setQuantity(item.getQuantity());
+            productDTOS.add(dto);
+        }
+        cartDTO.setProductDTOS(productDTOS);
+        return cartDTO;
+    }
+
+    @Benchmark
+    public CartDTO cartToDtoMapStruct() {
+        CartDTO cartDTO = cartMapper.toDTO(cart);
+        List<ProductDTO> productDTOS = new ArrayList<>(cart.getCartItems().size());
+        for (CartItem item : cart.getCartItems()) {
+            productDTOS.add(productMapper.toCartProductDTO(item));
+        }
+        cartDTO.setProductDTOS(productDTOS);
+        return cartDTO;
+    }
+
+    @Benchmark
+    public AddressDTO addressToDtoModelMapper() {
+        return modelMapper.map(address, AddressDTO.class);
+    }
+
+    @Benchmark
+    public AddressDTO addressToDtoMapStruct() {
+        return addressMapper.toDTO(address);
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.project.catalog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conditional GET support for the public catalog endpoints.
+ * <p>
+ * Every catalog response carries the catalog version as a strong ETag plus a Last-Modified date,
+ * and a request whose If-None-Match (or If-Modified-Since) still matches is answered with
+ * 304 Not Modified here, before the controller runs, so no repository call or serialization happens.
+ */
+@Component
+public class CatalogConditionalGetInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    private final String cacheControl;
+
+    public CatalogConditionalGetInterceptor(@Value("${project.catalog.http.max-age-seconds:0}") long maxAgeSeconds) {
+        CacheControl control = maxAgeSeconds > 0
+                ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).mustRevalidate()
+                : CacheControl.noCache();
+        this.cacheControl = control.cachePublic().getHeaderValue();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        // Read the version before the handler runs: a concurrent write can then only make the
+        // body newer than its tag, which costs one extra download but never serves stale data
+        String etag = catalogVersion.etag();
+        long lastModified = catalogVersion.lastModified();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        return !new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+}
@@ -0,0 +1,402 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.payload.DTO.CategoryDTO;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable, versioned view of the public catalog: every category and, per category, its products
+ * sorted by price (then product id) the way the category listing returns them.
+ * <p>
+ * Instances are never modified after construction. Writers derive a new snapshot with the
+ * {@code with...}/{@code without...} methods, which copy only the arrays of the affected category
+ * and share the rest, and publish it by swapping a single reference. Readers can therefore use a
+ * snapshot without any locking. The pages handed out hold copies of the DTOs, so callers may
+ * modify them without touching the snapshot.
+ * <p>
+ * Each snapshot carries a fingerprint of its content: the wrapping sum of a 64-bit hash of every
+ * category and product. It depends only on the data, so two processes holding the same catalog
+ * compute the same value, and the derived snapshots update it for the items they replace instead
+ * of hashing the whole catalog again.
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * Order of the precomputed per-category arrays: price ascending, then product id ascending.
+     */
+    public static final Comparator<ProductDTO> PRICE_ORDER = Comparator.comparingDouble(ProductDTO::getPrice)
+            .thenComparing(ProductDTO::getProductId);
+
+    private static final Comparator<CategoryDTO> CATEGORY_ID_ORDER = Comparator.comparingLong(CategoryDTO::getCategoryId);
+
+    private static final Comparator<CategoryDTO> CATEGORY_NAME_ORDER = Comparator.comparing(CategoryDTO::getCategoryName)
+            .thenComparing(CATEGORY_ID_ORDER);
+
+    private static final ProductDTO[] NO_PRODUCTS = new ProductDTO[0];
+
+    private final long version;
+    private final CategoryDTO[] categoriesById;
+    private final CategoryDTO[] categoriesByName;
+    private final Map<Long, ProductDTO[]> productsByCategory;
+    private final int productCount;
+    private final long fingerprint;
+
+    private CatalogSnapshot(long version, CategoryDTO[] categoriesById, Map<Long, ProductDTO[]> productsByCategory,
+                            long fingerprint) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.categoriesById = categoriesById;
+        this.categoriesByName = categoriesById.clone();
+        Arrays.sort(this.categoriesByName, CATEGORY_NAME_ORDER);
+        this.productsByCategory = Collections.unmodifiableMap(productsByCategory);
+        int count = 0;
+        for (ProductDTO[] products : productsByCategory.values()) {
+            count += products.length;
+        }
+        this.productCount = count;
+    }
+
+    /**
+     * Builds the initial snapshot.
+     *
+     * @param version            the version of the snapshot
+     * @param categories         all categories
+     * @param productsByCategory the products of each category, in any order
+     * @return the snapshot
+     */
+    public static CatalogSnapshot of(long version, List<CategoryDTO> categories, Map<Long, List<ProductDTO>> productsByCategory) {
+        CategoryDTO[] categoriesById = categories.stream().map(CatalogSnapshot::copy).toArray(CategoryDTO[]::new);
+        Arrays.sort(categoriesById, CATEGORY_ID_ORDER);
+        Map<Long, ProductDTO[]> products = new HashMap<>();
+        long fingerprint = 0;
+        for (CategoryDTO category : categoriesById) {
+            ProductDTO[] sorted = productsByCategory.getOrDefault(category.getCategoryId(), List.of()).stream()
+                    .map(CatalogSnapshot::copy)
+                    .sorted(PRICE_ORDER)
+                    .toArray(ProductDTO[]::new);
+            products.put(category.getCategoryId(), sorted);
+            fingerprint += hash(category) + hash(category.getCategoryId(), sorted);
+        }
+        return new CatalogSnapshot(version, categoriesById, products, fingerprint);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return the content fingerprint; equal for snapshots holding the same data
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public int categoryCount() {
+        return categoriesById.length;
+    }
+
+    public int productCount() {
+        return productCount;
+    }
+
+    public boolean containsCategory(long categoryId) {
+        return productsByCategory.containsKey(categoryId);
+    }
+
+    /**
+     * @return the number of products of the category, or -1 if the category does not exist
+     */
+    public int productCount(long categoryId) {
+        ProductDTO[] products = productsByCategory.get(categoryId);
+        return products == null ? -1 : products.length;
+    }
+
+    /**
+     * Returns one page of categories.
+     *
+     * @param byName     sort by category name instead of id
+     * @param ascending  the sort direction
+     * @param pageNumber the zero based page number
+     * @param pageSize   the page size, positive
+     * @return copies of the categories of the page
+     */
+    public List<CategoryDTO> categories(boolean byName, boolean ascending, int pageNumber, int pageSize) {
+        return page(byName ? categoriesByName : categoriesById, ascending, pageNumber, pageSize, CatalogSnapshot::copy);
+    }
+
+    /**
+     * Returns one page of the products of a category in {@link #PRICE_ORDER}.
+     *
+     * @param categoryId the category
+     * @param pageNumber the zero based page number
+     * @param pageSize   the page size, positive
+     * @return copies of the products of the page
+     */
+    public List<ProductDTO> products(long categoryId, int pageNumber, int pageSize) {
+        return page(productsByCategory.getOrDefault(categoryId, NO_PRODUCTS), true, pageNumber, pageSize, CatalogSnapshot::copy);
+    }
+
+    /**
+     * Returns one page of the products of a category in a custom order. The shared array is
+     * never reordered; a private copy is sorted instead.
+     *
+     * @param categoryId the category
+     * @param order      the order of the listing
+     * @param pageNumber the zero based page number
+     * @param pageSize   the page size, positive
+     * @return copies of the products of the page
+     */
+    public List<ProductDTO> products(long categoryId, Comparator<ProductDTO> order, int pageNumber, int pageSize) {
+        ProductDTO[] sorted = productsByCategory.getOrDefault(categoryId, NO_PRODUCTS).clone();
+        Arrays.sort(sorted, order);
+        return page(sorted, true, pageNumber, pageSize, CatalogSnapshot::copy);
+    }
+
+    /**
+     * Compares the catalog data of two snapshots, ignoring their versions.
+     *
+     * @return true if both hold the same categories and the same products
+     */
+    public boolean sameContent(CatalogSnapshot other) {
+        if (fingerprint != other.fingerprint || !Arrays.equals(categoriesById, other.categoriesById)
+                || productsByCategory.size() != other.productsByCategory.size()) {
+            return false;
+        }
+        for (Map.Entry<Long, ProductDTO[]> entry : productsByCategory.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), other.productsByCategory.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a snapshot in which the category is added or renamed
+     */
+    public CatalogSnapshot withCategory(CategoryDTO category) {
+        CategoryDTO copy = copy(category);
+        long updatedFingerprint = fingerprint + hash(copy);
+        List<CategoryDTO> categories = new ArrayList<>(categoriesById.length + 1);
+        for (CategoryDTO existing : categoriesById) {
+            if (existing.getCategoryId() != copy.getCategoryId()) {
+                categories.add(existing);
+            } else {
+                updatedFingerprint -= hash(existing);
+            }
+        }
+        categories.add(copy);
+        CategoryDTO[] sorted = categories.toArray(CategoryDTO[]::new);
+        Arrays.sort(sorted, CATEGORY_ID_ORDER);
+        Map<Long, ProductDTO[]> products = new HashMap<>(productsByCategory);
+        products.putIfAbsent(copy.getCategoryId(), NO_PRODUCTS);
+        return new CatalogSnapshot(version + 1, sorted, products, updatedFingerprint);
+    }
+
+    /**
+     * @return a snapshot without the category and its products
+     */
+    public CatalogSnapshot withoutCategory(long categoryId) {
+        long updatedFingerprint = fingerprint;
+        List<CategoryDTO> categories = new ArrayList<>(categoriesById.length);
+        for (CategoryDTO existing : categoriesById) {
+            if (existing.getCategoryId() != categoryId) {
+                categories.add(existing);
+            } else {
+                updatedFingerprint -= hash(existing);
+            }
+        }
+        Map<Long, ProductDTO[]> products = new HashMap<>(productsByCategory);
+        ProductDTO[] removed = products.remove(categoryId);
+        if (removed != null) {
+            updatedFingerprint -= hash(categoryId, removed);
+        }
+        return new CatalogSnapshot(version + 1, categories.toArray(CategoryDTO[]::new), products, updatedFingerprint);
+    }
+
+    /**
+     * @return a snapshot in which the product is added to or replaced in its category; unchanged
+     * if the category is not part of the snapshot
+     */
+    public CatalogSnapshot withProduct(long categoryId, ProductDTO product) {
+        ProductDTO[] current = productsByCategory.get(categoryId);
+        if (current == null) {
+            return this;
+        }
+        ProductDTO copy = copy(product);
+        long delta = hash(categoryId, copy);
+        ProductDTO[] updated = new ProductDTO[current.length + 1];
+        int size = 0;
+        for (ProductDTO existing : current) {
+            if (!existing.getProductId().equals(product.getProductId())) {
+                updated[size++] = existing;
+            } else {
+                delta -= hash(categoryId, existing);
+            }
+        }
+        updated[size++] = copy;
+        updated = Arrays.copyOf(updated, size);
+        Arrays.sort(updated, PRICE_ORDER);
+        return replaceProducts(categoryId, updated, delta);
+    }
+
+    /**
+     * @return a snapshot without the product
+     */
+    public CatalogSnapshot withoutProduct(long categoryId, long productId) {
+        ProductDTO[] current = productsByCategory.get(categoryId);
+        if (current == null) {
+            return this;
+        }
+        long delta = 0;
+        List<ProductDTO> updated = new ArrayList<>(current.length);
+        for (ProductDTO existing : current) {
+            if (existing.getProductId() != productId) {
+                updated.add(existing);
+            } else {
+                delta -= hash(categoryId, existing);
+            }
+        }
+        return updated.size() == current.length
+                ? this
+                : replaceProducts(categoryId, updated.toArray(ProductDTO[]::new), delta);
+    }
+
+    /**
+     * @return a snapshot in which the product has the given stock; unchanged if the product is not
+     * part of the snapshot or already has that stock
+     */
+    public CatalogSnapshot withQuantity(long categoryId, long productId, int quantity) {
+        ProductDTO[] current = productsByCategory.get(categoryId);
+        if (current == null) {
+            return this;
+        }
+        for (int i = 0; i < current.length; i++) {
+            ProductDTO existing = current[i];
+            if (existing.getProductId() == productId) {
+                if (Objects.equals(existing.getQuantity(), quantity)) {
+                    return this;
+                }
+                ProductDTO changed = copy(existing);
+                changed.setQuantity(quantity);
+                // The stock is not part of the price order, so the product keeps its position
+                ProductDTO[] updated = current.clone();
+                updated[i] = changed;
+                return replaceProducts(categoryId, updated, hash(categoryId, changed) - hash(categoryId, existing));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return a snapshot in which all the products are added to or replaced in their category,
+     * re-sorting the category once; unchanged if the category is not part of the snapshot
+     */
+    public CatalogSnapshot withProducts(long categoryId, Collection<ProductDTO> products) {
+        ProductDTO[] current = productsByCategory.get(categoryId);
+        if (current == null || products.isEmpty()) {
+            return this;
+        }
+        Set<Long> replaced = new HashSet<>();
+        List<ProductDTO> updated = new ArrayList<>(current.length + products.size());
+        long delta = 0;
+        for (ProductDTO product : products) {
+            ProductDTO copy = copy(product);
+            replaced.add(copy.getProductId());
+            updated.add(copy);
+            delta += hash(categoryId, copy);
+        }
+        for (ProductDTO existing : current) {
+            if (!replaced.contains(existing.getProductId())) {
+                updated.add(existing);
+            } else {
+                delta -= hash(categoryId, existing);
+            }
+        }
+        ProductDTO[] sorted = updated.toArray(ProductDTO[]::new);
+        Arrays.sort(sorted, PRICE_ORDER);
+        return replaceProducts(categoryId, sorted, delta);
+    }
+
+    private CatalogSnapshot replaceProducts(long categoryId, ProductDTO[] sortedProducts, long fingerprintDelta) {
+        Map<Long, ProductDTO[]> products = new HashMap<>(productsByCategory);
+        products.put(categoryId, sortedProducts);
+        return new CatalogSnapshot(version + 1, categoriesById, products, fingerprint + fingerprintDelta);
+    }
+
+    private static <T> List<T> page(T[] items, boolean ascending, int pageNumber, int pageSize, UnaryOperator<T> copy) {
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new IllegalArgumentException("Invalid page " + pageNumber + " of size " + pageSize);
+        }
+        long from = (long) pageNumber * pageSize;
+        if (from >= items.length) {
+            return List.of();
+        }
+        int to = (int) Math.min(items.length, from + pageSize);
+        List<T> page = new ArrayList<>(to - (int) from);
+        for (int i = (int) from; i < to; i++) {
+            page.add(copy.apply(items[ascending ? i : items.length - 1 - i]));
+        }
+        return Collections.unmodifiableList(page);
+    }
+
+    private static long hash(CategoryDTO category) {
+        long hash = 1;
+        hash = hash * 31 + category.getCategoryId();
+        hash = hash * 31 + Objects.hashCode(category.getCategoryName());
+        return mix(hash);
+    }
+
+    private static long hash(long categoryId, ProductDTO[] products) {
+        long sum = 0;
+        for (ProductDTO product : products) {
+            sum += hash(categoryId, product);
+        }
+        return sum;
+    }
+
+    private static long hash(long categoryId, ProductDTO product) {
+        long hash = 2;
+        hash = hash * 31 + categoryId;
+        hash = hash * 31 + product.getProductId();
+        hash = hash * 31 + Objects.hashCode(product.getProductName());
+        hash = hash * 31 + Objects.hashCode(product.getDescription());
+        hash = hash * 31 + Objects.hashCode(product.getImage());
+        hash = hash * 31 + Objects.hashCode(product.getQuantity());
+        hash = hash * 31 + Double.doubleToLongBits(product.getPrice());
+        hash = hash * 31 + Double.doubleToLongBits(product.getDiscount());
+        hash = hash * 31 + Double.doubleToLongBits(product.getNetPrice());
+        return mix(hash);
+    }
+
+    // Spreads the bits of the polynomial hash (the 64-bit finalizer of MurmurHash3), so the
+    // wrapping sum over many items does not cancel out
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static CategoryDTO copy(CategoryDTO category) {
+        return new CategoryDTO(category.getCategoryId(), category.getCategoryName());
+    }
+
+    private static ProductDTO copy(ProductDTO product) {
+        return new ProductDTO(product.getProductId(), product.getProductName(), product.getDescription(),
+                product.getImage(), product.getQuantity(), product.getPrice(), product.getDiscount(), product.getNetPrice());
+    }
+}
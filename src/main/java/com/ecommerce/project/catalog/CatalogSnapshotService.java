@@ -0,0 +1,243 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.event.CatalogReloadedEvent;
+import com.ecommerce.project.event.CategoryChangedEvent;
+import com.ecommerce.project.event.ProductChangedEvent;
+import com.ecommerce.project.event.ProductsImportedEvent;
+import com.ecommerce.project.event.StockChangedEvent;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.payload.DTO.CategoryDTO;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.payload.response.CategoryResponse;
+import com.ecommerce.project.payload.response.ProductResponse;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.projection.CatalogProductView;
+import com.ecommerce.project.util.PagingUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Serves category browsing from an in-memory {@link CatalogSnapshot}.
+ * <p>
+ * The snapshot is loaded once the application is ready and then kept current from the catalog
+ * write events: each committed write derives a new snapshot from the current one and swaps it in.
+ * Writers are serialized; readers only dereference the current snapshot, so they never lock
+ * and never touch the database.
+ * <p>
+ * Events only report the writes of this process. To pick up writes made by other nodes (or
+ * directly in the database) the snapshot is also reloaded periodically; when the reload differs
+ * from what was applied locally, a {@link CatalogReloadedEvent} tells the other catalog caches
+ * to drop their data too. Writes of other nodes therefore become visible within one refresh
+ * interval.
+ * <p>
+ * Read methods return null whenever the snapshot cannot answer (disabled, still loading, or a
+ * sort property it does not know), in which case callers fall back to the database.
+ */
+@Component
+public class CatalogSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private static final Map<String, Comparator<ProductDTO>> PRODUCT_SORTS = Map.of(
+            "productId", Comparator.comparing(ProductDTO::getProductId),
+            "productName", nullsLast(ProductDTO::getProductName),
+            "description", nullsLast(ProductDTO::getDescription),
+            "image", nullsLast(ProductDTO::getImage),
+            "quantity", nullsLast(ProductDTO::getQuantity),
+            "price", Comparator.comparingDouble(ProductDTO::getPrice),
+            "discount", Comparator.comparingDouble(ProductDTO::getDiscount),
+            "netPrice", Comparator.comparingDouble(ProductDTO::getNetPrice));
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${project.catalog.snapshot.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Loads the initial snapshot. Events committed while loading wait for the lock and are
+     * applied on top of it afterwards; applying a change twice is harmless.
+     */
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!enabled) {
+            return;
+        }
+        CatalogSnapshot snapshot = read(1);
+        current.set(snapshot);
+        logger.info("Catalog snapshot loaded: {} categories, {} products",
+                snapshot.categoryCount(), snapshot.productCount());
+    }
+
+    /**
+     * Reloads the snapshot from the database and swaps it in if it differs from the current one.
+     * The database is read without holding the lock, so committing writers are not held up; if
+     * a local change was applied meanwhile the reload may predate it and is discarded, and the
+     * next refresh tries again.
+     */
+    @Scheduled(fixedDelayString = "${project.catalog.snapshot.refresh-interval-ms:30000}",
+            initialDelayString = "${project.catalog.snapshot.refresh-interval-ms:30000}")
+    public void refresh() {
+        CatalogSnapshot before = current.get();
+        if (!enabled || before == null) {
+            return;
+        }
+        CatalogSnapshot reloaded = read(before.version() + 1);
+        synchronized (this) {
+            if (current.get() != before || before.sameContent(reloaded)) {
+                return;
+            }
+            current.set(reloaded);
+        }
+        logger.info("Catalog snapshot refreshed from the database: {} categories, {} products",
+                reloaded.categoryCount(), reloaded.productCount());
+        eventPublisher.publishEvent(new CatalogReloadedEvent(reloaded.categoryCount(), reloaded.productCount()));
+    }
+
+    // Two queries however many categories there are: the products are grouped in memory
+    private CatalogSnapshot read(long version) {
+        List<CategoryDTO> categories = new ArrayList<>();
+        for (Category category : categoryRepository.findAll()) {
+            categories.add(new CategoryDTO(category.getCategoryId(), category.getCategoryName()));
+        }
+        Map<Long, List<ProductDTO>> productsByCategory = new HashMap<>();
+        for (CatalogProductView product : productRepository.findAllCatalogProducts()) {
+            productsByCategory.computeIfAbsent(product.categoryId(), id -> new ArrayList<>())
+                    .add(product.toProductDTO());
+        }
+        return CatalogSnapshot.of(version, categories, productsByCategory);
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        update(snapshot -> event.type() == ProductChangedEvent.Type.DELETED
+                ? snapshot.withoutProduct(event.categoryId(), event.productId())
+                : snapshot.withProduct(event.categoryId(), event.product()));
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductsImported(ProductsImportedEvent event) {
+        update(snapshot -> snapshot.withProducts(event.categoryId(), event.products()));
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        update(snapshot -> event.type() == CategoryChangedEvent.Type.DELETED
+                ? snapshot.withoutCategory(event.categoryId())
+                : snapshot.withCategory(event.category()));
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        update(snapshot -> snapshot.withQuantity(event.categoryId(), event.productId(), event.quantity()));
+    }
+
+    private void update(Function<CatalogSnapshot, CatalogSnapshot> change) {
+        CatalogSnapshot snapshot = current.get();
+        // Before the initial load there is nothing to update; the load will read the change
+        if (snapshot != null) {
+            current.set(change.apply(snapshot));
+        }
+    }
+
+    /**
+     * @return the current snapshot, or null while it is disabled or loading
+     */
+    public CatalogSnapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Returns one page of categories from the snapshot.
+     *
+     * @return the page, or null if the snapshot cannot answer
+     * @throws APIException if the page number is negative
+     */
+    public CategoryResponse getCategories(int pageNumber, int pageSize, String sortBy, String sortOrder) {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null || !(sortBy.equals("categoryId") || sortBy.equals("categoryName"))) {
+            return null;
+        }
+        pageNumber = PagingUtil.pageNumber(pageNumber);
+        pageSize = PagingUtil.cappedPageSize(pageSize);
+        List<CategoryDTO> categories = snapshot.categories(sortBy.equals("categoryName"),
+                sortOrder.equalsIgnoreCase("asc"), pageNumber, pageSize);
+        long totalElements = snapshot.categoryCount();
+        int totalPages = totalPages(totalElements, pageSize);
+        return new CategoryResponse(categories, pageNumber, pageSize, totalElements, totalPages, pageNumber + 1 >= totalPages);
+    }
+
+    /**
+     * Returns one page of the products of a category from the snapshot, ordered by price and
+     * then by the requested property.
+     *
+     * @return the page, or null if the snapshot cannot answer
+     * @throws ResourceNotFoundException if the category does not exist
+     * @throws APIException if the page number is negative
+     */
+    public ProductResponse getProductsByCategory(Long categoryId, int pageNumber, int pageSize, String sortBy, String sortOrder) {
+        CatalogSnapshot snapshot = current.get();
+        Comparator<ProductDTO> secondary = PRODUCT_SORTS.get(sortBy);
+        if (snapshot == null || secondary == null) {
+            return null;
+        }
+        pageNumber = PagingUtil.pageNumber(pageNumber);
+        pageSize = PagingUtil.cappedPageSize(pageSize);
+        int productCount = snapshot.productCount(categoryId);
+        if (productCount < 0) {
+            throw new ResourceNotFoundException("Category", "CategoryId", categoryId);
+        }
+        boolean ascending = sortOrder.equalsIgnoreCase("asc");
+        List<ProductDTO> products;
+        if (sortBy.equals("productId") && ascending) {
+            products = snapshot.products(categoryId, pageNumber, pageSize);
+        } else {
+            Comparator<ProductDTO> order = Comparator.comparingDouble(ProductDTO::getPrice)
+                    .thenComparing(ascending ? secondary : secondary.reversed())
+                    .thenComparing(ProductDTO::getProductId);
+            products = snapshot.products(categoryId, order, pageNumber, pageSize);
+        }
+        int totalPages = totalPages(productCount, pageSize);
+        return new ProductResponse(products, pageNumber, pageSize, (long) productCount, totalPages, pageNumber + 1 >= totalPages);
+    }
+
+    private static int totalPages(long totalElements, int pageSize) {
+        return (int) ((totalElements + pageSize - 1) / pageSize);
+    }
+
+    private static <U extends Comparable<? super U>> Comparator<ProductDTO> nullsLast(Function<ProductDTO, U> key) {
+        return Comparator.comparing(key, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+}
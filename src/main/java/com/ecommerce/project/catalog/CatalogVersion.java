@@ -0,0 +1,103 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.event.CatalogReloadedEvent;
+import com.ecommerce.project.event.CategoryChangedEvent;
+import com.ecommerce.project.event.ProductChangedEvent;
+import com.ecommerce.project.event.ProductsImportedEvent;
+import com.ecommerce.project.event.StockChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the public catalog, bumped after every committed product, category or stock write
+ * (stock reservations and releases included, as the listings show the stock) and after a reload
+ * that picked up writes of other nodes.
+ * <p>
+ * While the catalog snapshot is enabled the entity tag is its content fingerprint, which depends
+ * only on the data: every node holding the same catalog issues the same tag, so a validator
+ * obtained from one node is honoured by the others. Without the snapshot the tag is a local
+ * counter paired with a random per-process epoch, so validators of a previous process (or another
+ * node) never match by accident; they are simply never honoured across nodes. Last-Modified is
+ * always the local time of the last change, which is why If-None-Match takes precedence over it.
+ * <p>
+ * The listeners run last, after the page cache and the catalog snapshot have applied the
+ * change, so a request that observes the new version can never be answered from stale data.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(new SecureRandom().nextLong() >>> 1, 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified = System.currentTimeMillis();
+    private volatile String contentTag;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        bump();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        bump();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bump();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        bump();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        bump();
+    }
+
+    private void bump() {
+        // Taken from the snapshot only here, once the other listeners have applied the change
+        CatalogSnapshot snapshot = catalogSnapshotService.snapshot();
+        contentTag = snapshot == null ? null : Long.toUnsignedString(snapshot.fingerprint(), 36);
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return the strong entity tag of the current catalog version, quoted
+     */
+    public String etag() {
+        String tag = contentTag;
+        return tag != null ? "\"" + tag + "\"" : "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    /**
+     * @return the time of the last catalog change (or of the start), in epoch milliseconds
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.project.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves id sequences past the ids already stored in their tables.
+ * <p>
+ * Entities that switched from IDENTITY to pooled SEQUENCE ids (so Hibernate can batch their
+ * inserts) get a freshly created sequence that starts at 1, while the table still holds the
+ * identity generated rows. Before the web server accepts requests, each sequence is raised to at
+ * least the largest stored id. It is never lowered, so restarts and other nodes are unaffected.
+ */
+@Component
+public class SequenceAlignment implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAlignment.class);
+
+    /**
+     * Sequence name to the table and id column it generates values for.
+     */
+    private static final Map<String, String[]> SEQUENCES = Map.of(
+            "products_seq", new String[]{"products", "product_id"},
+            "cart_items_seq", new String[]{"cart_items", "cart_item_id"});
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach((sequence, target) -> {
+            Long value = jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', GREATEST("
+                    + "(SELECT COALESCE(MAX(" + target[1] + "), 0) FROM " + target[0] + "), "
+                    + "(SELECT last_value FROM " + sequence + ")))", Long.class);
+            logger.info("Sequence {} aligned to {}", sequence, value);
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.catalog.CatalogConditionalGetInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC configuration.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private CatalogConditionalGetInterceptor catalogConditionalGetInterceptor;
+
+    /**
+     * Registers conditional GET handling for the public catalog endpoints. Addresses are
+     * user data and not part of the catalog, so they are excluded.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogConditionalGetInterceptor)
+                .addPathPatterns("/api/v1/public/**")
+                .excludePathPatterns("/api/v1/public/addresses", "/api/v1/public/addresses/**");
+    }
+}
@@ -3,6 +3,12 @@ package com.ecommerce.project.constants;
 public class AppConstants {
     public static final String PAGE_NUMBER = "0";
     public static final String PAGE_SIZE = "50";
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_IMPORT_SIZE = 10000;
+    public static final int IMPORT_CHUNK_SIZE = 1000;
+    public static final int MAX_CART_OPERATIONS = 200;
+    public static final int DELETE_CHUNK_SIZE = 1000;
+    public static final int MAX_GUEST_CART_LINES = 50;
     public static final String SORT_CATEGORIES_BY = "categoryId";
     public static final String SORT_PRODUCTS_BY = "productId";
     public static final String SORT_ADDRESSES_BY = "addressId";
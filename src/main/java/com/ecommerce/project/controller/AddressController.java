@@ -5,9 +5,10 @@ import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.DTO.AddressDTO;
 import com.ecommerce.project.payload.DTO.ProductDTO;
 import com.ecommerce.project.payload.response.AddressResponse;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.payload.response.ProductResponse;
 import com.ecommerce.project.service.AddressService;
-import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.util.CurrentUserContext;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -21,11 +22,11 @@ public class AddressController {
     private AddressService addressService;
 
     @Autowired
-    private AuthUtil authUtil;
+    private CurrentUserContext currentUser;
 
     @PostMapping("/address")
     public ResponseEntity<AddressDTO> createAddress(@Valid @RequestBody AddressDTO addressDTO){
-        User loggedInUser = authUtil.loggedInUser();
+        User loggedInUser = currentUser.user();
         AddressDTO saveAddress = addressService.createAddress(addressDTO, loggedInUser);
         return new ResponseEntity<AddressDTO>(saveAddress, HttpStatus.CREATED);
     }
@@ -41,6 +42,17 @@ public class AddressController {
         return new ResponseEntity<AddressResponse>(addressResponse, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/public/addresses", params = "cursor")
+    public ResponseEntity<CursorResponse<AddressDTO>> scrollAddresses(
+            @RequestParam(name = "cursor", defaultValue = "", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_ADDRESSES_BY, required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER, required = false) String sortOrder
+    ){
+        CursorResponse<AddressDTO> addressResponse = addressService.scrollAddresses(cursor, pageSize, sortBy, sortOrder);
+        return new ResponseEntity<CursorResponse<AddressDTO>>(addressResponse, HttpStatus.OK);
+    }
+
     @DeleteMapping("/admin/address/{addressId}")
     public ResponseEntity<String> deleteAddress(@PathVariable Long addressId){
         String status = addressService.deleteAddress(addressId);
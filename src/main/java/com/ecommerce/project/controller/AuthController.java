@@ -1,23 +1,35 @@
 package com.ecommerce.project.controller;
 
 import com.ecommerce.project.enums.AppRole;
+import com.ecommerce.project.event.UserChangedEvent;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.exceptions.TooManyRequestsException;
 import com.ecommerce.project.model.Role;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.repositories.RoleRepository;
 import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.LoginRateLimiter;
+import com.ecommerce.project.security.PasswordHashingService;
 import com.ecommerce.project.security.jwt.JwtUtils;
 import com.ecommerce.project.security.jwt.security.services.UserDetailsImpl;
 import com.ecommerce.project.security.request.LoginRequest;
 import com.ecommerce.project.security.request.SignupRequest;
 import com.ecommerce.project.security.response.MessageResponse;
 import com.ecommerce.project.security.response.UserInfoResponse;
+import com.ecommerce.project.service.CartService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -33,9 +45,14 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/v1/auth")
 
 public class AuthController {
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private CartService cartService;
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -48,6 +65,15 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     // ---------------------Generate Token --------------------------
 //    @PostMapping("/signin")
 //    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
@@ -80,13 +106,23 @@ public class AuthController {
 
 
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        loginRateLimiter.acquire(request.getRemoteAddr(), loginRequest.getUsername());
 
         Authentication authentication;
         try {
+            // Only the password check runs on the bounded hashing pool (see PooledPasswordEncoder)
             authentication = authenticationManager
                     .authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
         } catch (AuthenticationException exception) {
+            if (exception instanceof InternalAuthenticationServiceException) {
+                // The provider wraps the check made for an unknown user; a saturated pool stays a 429
+                if (exception.getCause() instanceof TooManyRequestsException tooManyRequests) {
+                    throw tooManyRequests;
+                }
+            } else if (loginRequest.getUsername() != null) {
+                loginRateLimiter.recordFailure(request.getRemoteAddr(), loginRequest.getUsername());
+            }
             Map<String, Object> map = new HashMap<>();
             map.put("message", "Bad credentials");
             map.put("status", false);
@@ -105,13 +141,28 @@ public class AuthController {
 
         UserInfoResponse response = new UserInfoResponse(userDetails.getId(), userDetails.getUsername(), roles, jwtCookie.toString());
 
-        return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
-                .body(response);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, jwtCookie.toString());
+
+        // Move the cart built before signing in into the user's cart, then drop the cookie
+        Map<Long, Integer> guestCart = jwtUtils.getGuestCartFromCookies(request);
+        if (!guestCart.isEmpty()) {
+            try {
+                cartService.mergeGuestCart(userDetails.getId(), guestCart);
+                builder.header(HttpHeaders.SET_COOKIE, jwtUtils.getCleanGuestCartCookie().toString());
+            } catch (APIException | ResourceNotFoundException e) {
+                // Keep the guest cart so nothing is lost; sign-in itself must not fail
+                logger.warn("Could not merge the guest cart of user {}: {}", userDetails.getUsername(), e.getMessage());
+            }
+        }
+
+        return builder.body(response);
     }
 
 
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest, HttpServletRequest request) {
+        loginRateLimiter.acquire(request.getRemoteAddr(), null);
+
         if (userRepository.existsByUserName(signUpRequest.getUsername())) {
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Username is already taken!"));
         }
@@ -123,7 +174,7 @@ public class AuthController {
         // Create new user's account
         User user = new User(signUpRequest.getUsername(),
                 signUpRequest.getEmail(),
-                passwordEncoder.encode(signUpRequest.getPassword()));
+                passwordHashingService.run(() -> passwordEncoder.encode(signUpRequest.getPassword())));
 
         Set<String> strRoles = signUpRequest.getRole();
         Set<Role> roles = new HashSet<>();
@@ -157,6 +208,7 @@ public class AuthController {
 
         user.setRoles(roles);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getUserName()));
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
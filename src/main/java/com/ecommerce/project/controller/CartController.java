@@ -1,14 +1,19 @@
 package com.ecommerce.project.controller;
 
-import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.constants.AppConstants;
 import com.ecommerce.project.payload.DTO.CartDTO;
-import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.payload.DTO.CartOperationDTO;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.service.CartService;
-import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.service.CartWriteCoalescer;
+import com.ecommerce.project.util.CurrentUserContext;
+import com.ecommerce.project.util.NdjsonWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,10 +24,10 @@ public class CartController {
     private CartService cartService;
 
     @Autowired
-    private AuthUtil authUtil;
+    private CurrentUserContext currentUser;
 
     @Autowired
-    private CartRepository cartRepository;
+    private CartWriteCoalescer cartWriteCoalescer;
 
     @PostMapping("/carts/products/{productId}/quantity/{quantity}")
     public ResponseEntity<CartDTO> addProductToCart(@PathVariable Long productId, @PathVariable Integer quantity){
@@ -30,25 +35,39 @@ public class CartController {
         return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.CREATED);
     }
 
+    @PostMapping("/carts/products/batch")
+    public ResponseEntity<CartDTO> applyCartOperations(@RequestBody List<CartOperationDTO> operations){
+        CartDTO cartDTO = cartService.applyCartOperations(operations);
+        return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
+    }
+
     @GetMapping("/carts")
-    public ResponseEntity<List<CartDTO>> getCarts(){
-        List<CartDTO> cartDTOS = cartService.getAllCarts();
-        return new ResponseEntity<List<CartDTO>>(cartDTOS, HttpStatus.OK);
+    public ResponseEntity<CursorResponse<CartDTO>> getCarts(
+            @RequestParam(name = "cursor", defaultValue = "", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize){
+        CursorResponse<CartDTO> cartResponse = cartService.scrollCarts(cursor, pageSize);
+        return new ResponseEntity<CursorResponse<CartDTO>>(cartResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Streams every cart as NDJSON when the client asks for {@code application/x-ndjson}.
+     */
+    @GetMapping(value = "/carts", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportCarts(){
+        StreamingResponseBody body = outputStream -> cartService.exportCarts(outputStream);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE)).body(body);
     }
 
     @GetMapping("/carts/users/cart")
     public ResponseEntity<CartDTO> getCartById(){
-        String emailId = authUtil.loggedInEmail();
-        Cart cart = cartRepository.findCartByEmail(emailId);
-        Long cartId = cart.getCartId();
-        CartDTO cartDTO = cartService.getCart(emailId, cartId);
+        CartDTO cartDTO = cartService.getUserCart(currentUser.userId());
         return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
     }
 
     @PutMapping("/cart/products/{productId}/quantity/{operation}")
     public ResponseEntity<CartDTO> updateCartProduct(@PathVariable Long productId,
                                                      @PathVariable String operation){
-        CartDTO cartDTO = cartService.updateProductQuantityInCart(productId, operation.equalsIgnoreCase("delete") ? -1 : 1);
+        CartDTO cartDTO = cartWriteCoalescer.updateProductQuantity(productId, operation.equalsIgnoreCase("delete") ? -1 : 1);
         return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
     }
 
@@ -2,7 +2,9 @@ package com.ecommerce.project.controller;
 
 import com.ecommerce.project.constants.AppConstants;
 import com.ecommerce.project.payload.DTO.CategoryDTO;
+import com.ecommerce.project.payload.response.CategoryDeletionResponse;
 import com.ecommerce.project.payload.response.CategoryResponse;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.service.CategoryService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -29,6 +31,17 @@ public class CategoryController {
        return new ResponseEntity<>(categoryResponse, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/public/categories", params = "cursor")
+    public ResponseEntity<CursorResponse<CategoryDTO>> scrollCategories(
+            @RequestParam(name = "cursor", defaultValue = "", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_CATEGORIES_BY, required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER, required = false) String sortOrder
+    ){
+        CursorResponse<CategoryDTO> categoryResponse = categoryService.scrollCategories(cursor, pageSize, sortBy, sortOrder);
+        return new ResponseEntity<>(categoryResponse, HttpStatus.OK);
+    }
+
     @PostMapping("/public/categories")
     public ResponseEntity<CategoryDTO> createCategory(@Valid @RequestBody CategoryDTO categoryDTO){
         CategoryDTO savedCategoryDTO = categoryService.createCategory(categoryDTO);
@@ -47,4 +60,16 @@ public class CategoryController {
         CategoryDTO deletedCategory = categoryService.deleteCategory(categoryId);
         return new ResponseEntity<>(deletedCategory, HttpStatus.OK);
     }
+
+    @PostMapping("/admin/categories/{categoryId}/deletion")
+    public ResponseEntity<CategoryDeletionResponse> startCategoryDeletion(@PathVariable Long categoryId){
+        CategoryDeletionResponse deletion = categoryService.startCategoryDeletion(categoryId);
+        return new ResponseEntity<>(deletion, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/admin/categories/deletions/{jobId}")
+    public ResponseEntity<CategoryDeletionResponse> getCategoryDeletion(@PathVariable String jobId){
+        CategoryDeletionResponse deletion = categoryService.getCategoryDeletion(jobId);
+        return new ResponseEntity<>(deletion, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,60 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.DTO.CartDTO;
+import com.ecommerce.project.security.jwt.JwtUtils;
+import com.ecommerce.project.service.GuestCartService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Cart endpoints for visitors who are not signed in. The cart is kept in a signed cookie that is
+ * rewritten on every change and merged into the user's cart at sign-in.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class GuestCartController {
+    @Autowired
+    private GuestCartService guestCartService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @GetMapping("/guest/cart")
+    public ResponseEntity<CartDTO> getGuestCart(HttpServletRequest request){
+        CartDTO cartDTO = guestCartService.getCart(jwtUtils.getGuestCartFromCookies(request));
+        return new ResponseEntity<CartDTO>(cartDTO, HttpStatus.OK);
+    }
+
+    @PostMapping("/guest/cart/products/{productId}/quantity/{quantity}")
+    public ResponseEntity<CartDTO> addProductToGuestCart(@PathVariable Long productId, @PathVariable Integer quantity,
+                                                         HttpServletRequest request){
+        Map<Long, Integer> lines = guestCartService.addProductToCart(jwtUtils.getGuestCartFromCookies(request), productId, quantity);
+        return withCookie(lines, HttpStatus.CREATED);
+    }
+
+    @PutMapping("/guest/cart/products/{productId}/quantity/{operation}")
+    public ResponseEntity<CartDTO> updateGuestCartProduct(@PathVariable Long productId, @PathVariable String operation,
+                                                          HttpServletRequest request){
+        Map<Long, Integer> lines = guestCartService.updateProductQuantityInCart(jwtUtils.getGuestCartFromCookies(request),
+                productId, operation.equalsIgnoreCase("delete") ? -1 : 1);
+        return withCookie(lines, HttpStatus.OK);
+    }
+
+    @DeleteMapping("/guest/cart/products/{productId}")
+    public ResponseEntity<CartDTO> deleteProductFromGuestCart(@PathVariable Long productId, HttpServletRequest request){
+        Map<Long, Integer> lines = guestCartService.deleteProductFromCart(jwtUtils.getGuestCartFromCookies(request), productId);
+        return withCookie(lines, HttpStatus.OK);
+    }
+
+    private ResponseEntity<CartDTO> withCookie(Map<Long, Integer> lines, HttpStatus status) {
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.SET_COOKIE, jwtUtils.generateGuestCartCookie(lines).toString())
+                .body(guestCartService.getCart(lines));
+    }
+}
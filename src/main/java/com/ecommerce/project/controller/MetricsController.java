@@ -0,0 +1,118 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.catalog.CatalogSnapshot;
+import com.ecommerce.project.catalog.CatalogSnapshotService;
+import com.ecommerce.project.security.LoginRateLimiter;
+import com.ecommerce.project.security.PasswordHashingService;
+import com.ecommerce.project.security.jwt.JwtUtils;
+import com.ecommerce.project.security.jwt.security.services.UserDetailsServiceImpl;
+import com.ecommerce.project.service.CartAggregateCache;
+import com.ecommerce.project.service.CartLocks;
+import com.ecommerce.project.service.CartWriteCoalescer;
+import com.ecommerce.project.service.ProductCatalogCache;
+import com.ecommerce.project.service.StockReservationService;
+import com.ecommerce.project.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Exposes in-process performance counters (cache hit ratios, evictions, ...) so they can be
+ * used to size caches and pools from real traffic.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class MetricsController {
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private CartAggregateCache cartAggregateCache;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private CartWriteCoalescer cartWriteCoalescer;
+
+    @Autowired
+    private CartLocks cartLocks;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @GetMapping("/admin/metrics/product-cache")
+    public ResponseEntity<BoundedTtlCache.CacheStats> getProductCacheStats(){
+        return new ResponseEntity<>(productCatalogCache.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/cart-cache")
+    public ResponseEntity<BoundedTtlCache.CacheStats> getCartCacheStats(){
+        return new ResponseEntity<>(cartAggregateCache.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/catalog-snapshot")
+    public ResponseEntity<Map<String, Object>> getCatalogSnapshotStats(){
+        CatalogSnapshot snapshot = catalogSnapshotService.snapshot();
+        if(snapshot == null){
+            return new ResponseEntity<>(Map.of("loaded", false), HttpStatus.OK);
+        }
+        Map<String, Object> stats = Map.of("loaded", true, "version", snapshot.version(),
+                "categories", snapshot.categoryCount(), "products", snapshot.productCount());
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/stock-reservations")
+    public ResponseEntity<StockReservationService.ReservationStats> getStockReservationStats(
+            @RequestParam(name = "limit", defaultValue = "20", required = false) Integer limit){
+        return new ResponseEntity<>(stockReservationService.stats(limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/cart-coalescer")
+    public ResponseEntity<Map<String, Object>> getCartCoalescerStats(){
+        return new ResponseEntity<>(cartWriteCoalescer.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/cart-locks")
+    public ResponseEntity<CartLocks.LockStats> getCartLockStats(){
+        return new ResponseEntity<>(cartLocks.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/jwt-cache")
+    public ResponseEntity<BoundedTtlCache.CacheStats> getJwtCacheStats(){
+        return new ResponseEntity<>(jwtUtils.verifiedTokenStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/user-details-cache")
+    public ResponseEntity<UserDetailsServiceImpl.UserDetailsCacheStats> getUserDetailsCacheStats(){
+        return new ResponseEntity<>(userDetailsService.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/password-hashing")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStats(){
+        return new ResponseEntity<>(passwordHashingService.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/admin/metrics/login-rate-limit")
+    public ResponseEntity<Map<String, Object>> getLoginRateLimitStats(){
+        return new ResponseEntity<>(loginRateLimiter.stats(), HttpStatus.OK);
+    }
+}
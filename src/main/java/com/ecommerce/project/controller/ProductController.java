@@ -2,16 +2,24 @@ package com.ecommerce.project.controller;
 
 import com.ecommerce.project.constants.AppConstants;
 import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.payload.response.BulkImportResponse;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.payload.response.ProductResponse;
 import com.ecommerce.project.service.ProductService;
+import com.ecommerce.project.util.NdjsonWriter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -25,6 +33,12 @@ public class ProductController {
         return new ResponseEntity<>(savedProductDTO, HttpStatus.CREATED);
     }
 
+    @PostMapping("/admin/categories/{categoryId}/products/bulk")
+    public ResponseEntity<BulkImportResponse> importProducts(@PathVariable Long categoryId, @RequestBody List<ProductDTO> productDTOs){
+        BulkImportResponse bulkImportResponse = productService.importProducts(categoryId, productDTOs);
+        return new ResponseEntity<>(bulkImportResponse, HttpStatus.OK);
+    }
+
     @GetMapping("/public/products")
     public ResponseEntity<ProductResponse> getAllProducts(
             @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
@@ -36,6 +50,40 @@ public class ProductController {
         return new ResponseEntity<>(productResponse, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/public/products", params = "cursor")
+    public ResponseEntity<CursorResponse<ProductDTO>> scrollProducts(
+            @RequestParam(name = "cursor", defaultValue = "", required = false) String cursor,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER, required = false) String sortOrder
+    ){
+        CursorResponse<ProductDTO> productResponse = productService.scrollProducts(cursor, pageSize, sortBy, sortOrder);
+        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Streams the whole catalog as NDJSON for partner syncs, optionally gzip compressed.
+     */
+    @GetMapping("/public/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(name = "gzip", defaultValue = "false", required = false) boolean gzip
+    ){
+        StreamingResponseBody body = outputStream -> {
+            if(gzip){
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 8192);
+                productService.exportProducts(gzipOutputStream);
+                gzipOutputStream.finish();
+            }else{
+                productService.exportProducts(outputStream);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE));
+        if(gzip){
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/public/categories/{categoryId}/products")
     public ResponseEntity<ProductResponse> getProductsByCategory(
             @PathVariable Long categoryId,
@@ -54,16 +102,30 @@ public class ProductController {
                                                                   @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
                                                                   @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
                                                                   @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER, required = false) String sortOrder){
-        ProductResponse productResponse = productService.searchProductByKeyword("%" + keyword + "%", pageNumber, pageSize, sortBy, sortOrder);
+        ProductResponse productResponse = productService.searchProductByKeyword(keyword, pageNumber, pageSize, sortBy, sortOrder);
         return new ResponseEntity<>(productResponse, HttpStatus.FOUND);
     }
 
+    @GetMapping(value = "/public/products/search/{keyword}", params = "cursor")
+    public ResponseEntity<CursorResponse<ProductDTO>> scrollProductsByKeyword(@PathVariable String keyword,
+                                                                              @RequestParam(name = "cursor", defaultValue = "", required = false) String cursor,
+                                                                              @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize){
+        CursorResponse<ProductDTO> productResponse = productService.scrollProductsByKeyword(keyword, cursor, pageSize);
+        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    }
+
     @PutMapping("/admin/product/{productId}")
     public ResponseEntity<ProductDTO> updateProduct(@PathVariable Long productId, @RequestBody ProductDTO productDTO){
         ProductDTO updatedProductDto = productService.updateProduct(productId, productDTO);
         return new ResponseEntity<>(updatedProductDto, HttpStatus.OK);
     }
 
+    @PutMapping("/admin/product/{productId}/stock/{quantity}")
+    public ResponseEntity<ProductDTO> adjustProductStock(@PathVariable Long productId, @PathVariable Integer quantity){
+        ProductDTO updatedProductDto = productService.adjustStock(productId, quantity);
+        return new ResponseEntity<>(updatedProductDto, HttpStatus.OK);
+    }
+
     @DeleteMapping("/admin/product/{productId}")
     public ResponseEntity<ProductDTO> deleteProduct(@PathVariable Long productId){
         ProductDTO deletedProduct = productService.deleteProduct(productId);
@@ -0,0 +1,12 @@
+package com.ecommerce.project.event;
+
+/**
+ * Published when a periodic reload of the catalog snapshot found the database different from
+ * what this process had applied, typically because another node wrote to the catalog. Listeners
+ * holding derived catalog data drop it.
+ *
+ * @param categoryCount the number of categories after the reload
+ * @param productCount  the number of products after the reload
+ */
+public record CatalogReloadedEvent(int categoryCount, int productCount) {
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.project.event;
+
+import com.ecommerce.project.payload.DTO.CategoryDTO;
+
+import java.util.List;
+
+/**
+ * Published by the category write paths after a category was created, changed or deleted.
+ *
+ * @param type       what happened to the category
+ * @param categoryId the id of the category
+ * @param category   the category as saved, or null when it was deleted
+ * @param productIds the ids of the products deleted together with the category, empty otherwise
+ */
+public record CategoryChangedEvent(Type type, Long categoryId, CategoryDTO category, List<Long> productIds) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.project.event;
+
+import com.ecommerce.project.payload.DTO.ProductDTO;
+
+/**
+ * Published by the product write paths after a product was created, changed or deleted.
+ * Read-side structures (page cache, search index, catalog snapshot) listen to it to stay current.
+ *
+ * @param type       what happened to the product
+ * @param productId  the id of the product
+ * @param categoryId the id of the category the product belongs to
+ * @param product    the product as saved, or null when it was deleted
+ */
+public record ProductChangedEvent(Type type, Long productId, Long categoryId, ProductDTO product) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        IMAGE_UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.project.event;
+
+import com.ecommerce.project.payload.DTO.ProductDTO;
+
+import java.util.List;
+
+/**
+ * Published once per bulk import with every product it created, so listeners can apply the
+ * whole import in one step instead of handling thousands of single product events.
+ *
+ * @param categoryId the category the products were imported into
+ * @param products   the created products
+ */
+public record ProductsImportedEvent(Long categoryId, List<ProductDTO> products) {
+}
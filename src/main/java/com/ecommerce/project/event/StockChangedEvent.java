@@ -0,0 +1,12 @@
+package com.ecommerce.project.event;
+
+/**
+ * Published by the stock reservation paths after the stock of a product was taken or given back.
+ * The public catalog shows the stock, so read-side structures listen to it like to product changes.
+ *
+ * @param productId  the id of the product
+ * @param categoryId the id of the category the product belongs to
+ * @param quantity   the stock left after the change
+ */
+public record StockChangedEvent(Long productId, Long categoryId, int quantity) {
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.project.event;
+
+/**
+ * Published after a user account was created or changed in a way that affects authentication
+ * (password, email or roles). Caches of user details listen to it to drop the stale entry.
+ *
+ * @param username the name of the user
+ */
+public record UserChangedEvent(String username) {
+}
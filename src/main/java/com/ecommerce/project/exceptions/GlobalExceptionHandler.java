@@ -1,6 +1,7 @@
 package com.ecommerce.project.exceptions;
 
 import com.ecommerce.project.payload.response.APIResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -66,4 +67,21 @@ public class GlobalExceptionHandler {
         APIResponse apiResponse = new APIResponse(message, false);
         return new ResponseEntity<>(apiResponse, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Handles {@link TooManyRequestsException}.
+     * This is triggered when a client is rate limited or the server sheds load, and tells the
+     * client when to retry.
+     *
+     * @param e The {@link TooManyRequestsException} containing the reason and the retry delay.
+     * @return A {@link ResponseEntity} containing an {@link APIResponse} with a TOO_MANY_REQUESTS status.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<APIResponse> TooManyRequestsExceptionHandler(TooManyRequestsException e) {
+        String message = e.getMessage();
+        APIResponse apiResponse = new APIResponse(message, false);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(apiResponse);
+    }
 }
@@ -0,0 +1,32 @@
+package com.ecommerce.project.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a request is turned away to protect the server: a client went over its rate limit,
+ * or the work it asked for cannot be queued right now. Answered with 429 Too Many Requests.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    // A unique identifier for the serialized object, ensuring compatibility during serialization/deserialization
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // How long the client should wait before trying again, in seconds
+    private final long retryAfterSeconds;
+
+    /**
+     * Creates the exception with a message and the time the client should wait.
+     *
+     * @param message           The detailed error message for the exception.
+     * @param retryAfterSeconds How long the client should wait before trying again, in seconds.
+     */
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
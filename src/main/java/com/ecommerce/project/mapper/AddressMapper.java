@@ -0,0 +1,18 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.payload.DTO.AddressDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Compile-time generated mapper between {@link Address} and {@link AddressDTO}.
+ */
+@Mapper(componentModel = "spring")
+public interface AddressMapper {
+
+    AddressDTO toDTO(Address address);
+
+    @Mapping(target = "user", ignore = true)
+    Address toEntity(AddressDTO addressDTO);
+}
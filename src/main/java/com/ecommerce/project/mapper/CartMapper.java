@@ -0,0 +1,17 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.payload.DTO.CartDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Compile-time generated mapper from {@link Cart} to {@link CartDTO}.
+ * The products of the cart are filled in by the caller, which decides which quantity they report.
+ */
+@Mapper(componentModel = "spring")
+public interface CartMapper {
+
+    @Mapping(target = "productDTOS", ignore = true)
+    CartDTO toDTO(Cart cart);
+}
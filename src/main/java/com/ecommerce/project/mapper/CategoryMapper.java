@@ -0,0 +1,18 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.payload.DTO.CategoryDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Compile-time generated mapper between {@link Category} and {@link CategoryDTO}.
+ */
+@Mapper(componentModel = "spring")
+public interface CategoryMapper {
+
+    CategoryDTO toDTO(Category category);
+
+    @Mapping(target = "products", ignore = true)
+    Category toEntity(CategoryDTO categoryDTO);
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Compile-time generated mapper between {@link Product} and {@link ProductDTO}.
+ */
+@Mapper(componentModel = "spring")
+public interface ProductMapper {
+
+    ProductDTO toDTO(Product product);
+
+    /**
+     * Maps the product of a cart line, reporting the quantity in the cart instead of the stock.
+     *
+     * @param cartItem the cart line
+     * @return the product of the line with the line quantity
+     */
+    @Mapping(target = ".", source = "product")
+    @Mapping(target = "quantity", source = "quantity")
+    ProductDTO toCartProductDTO(CartItem cartItem);
+
+    @Mapping(target = "category", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "products", ignore = true)
+    Product toEntity(ProductDTO productDTO);
+}
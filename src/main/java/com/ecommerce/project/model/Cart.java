@@ -26,4 +26,9 @@ public class Cart {
     private List<CartItem> cartItems = new ArrayList<>();
 
     private Double totalPrice = 0.0;
+
+    // Bumped by every write to the cart, so caches of other nodes can tell their copy is stale
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
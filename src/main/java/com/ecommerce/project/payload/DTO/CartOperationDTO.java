@@ -0,0 +1,28 @@
+package com.ecommerce.project.payload.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change to a cart line in a batch cart update.
+ * <ul>
+ *     <li>ADD adds {@code quantity} to the line, creating it if needed</li>
+ *     <li>SET sets the line to {@code quantity}; 0 removes it</li>
+ *     <li>REMOVE removes the line; {@code quantity} is ignored</li>
+ * </ul>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartOperationDTO {
+    private Type type;
+    private Long productId;
+    private Integer quantity;
+
+    public enum Type {
+        ADD,
+        SET,
+        REMOVE
+    }
+}
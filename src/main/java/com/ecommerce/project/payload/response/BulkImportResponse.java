@@ -0,0 +1,17 @@
+package com.ecommerce.project.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResponse {
+    private int received;
+    private int created;
+    private int rejected;
+    private List<BulkImportRowResult> results;
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.project.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of a category deletion running in the background.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDeletionResponse {
+    private String jobId;
+    private Long categoryId;
+    private Status status;
+    private long productsTotal;
+    private long productsDeleted;
+    private long cartsUpdated;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String message;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
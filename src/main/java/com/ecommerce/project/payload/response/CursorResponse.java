@@ -0,0 +1,17 @@
+package com.ecommerce.project.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorResponse<T> {
+    private List<T> responseObject;
+    private Integer pageSize;
+    private String nextCursor;
+    private boolean lastPage;
+}
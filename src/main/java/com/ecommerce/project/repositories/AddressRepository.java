@@ -1,9 +1,15 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Address;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AddressRepository extends JpaRepository<Address, Long> {
+
+    Window<Address> findAllBy(ScrollPosition position, Sort sort, Limit limit);
 }
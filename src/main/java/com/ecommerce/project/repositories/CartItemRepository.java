@@ -4,8 +4,11 @@ import com.ecommerce.project.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
@@ -15,4 +18,29 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Modifying
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id = ?2")
     void deleteCartItemByProductIdAndCartId(Long cartId, Long productId);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = :quantity, ci.productPrice = :productPrice, ci.discount = :discount "
+            + "WHERE ci.cart.id = :cartId AND ci.product.id = :productId")
+    int updateCartItem(@Param("cartId") Long cartId, @Param("productId") Long productId, @Param("quantity") Integer quantity,
+                       @Param("productPrice") Double productPrice, @Param("discount") Double discount);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.product.id IN :productIds")
+    int deleteCartItemsByCartIdAndProductIdIn(@Param("cartId") Long cartId, @Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Sets the price and discount of every cart line of a product.
+     *
+     * @return the number of updated cart lines
+     */
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.productPrice = :productPrice, ci.discount = :discount "
+            + "WHERE ci.product.id = :productId AND (ci.productPrice <> :productPrice OR ci.discount <> :discount)")
+    int repriceCartItems(@Param("productId") Long productId, @Param("productPrice") double productPrice,
+                         @Param("discount") double discount);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.product.id IN :productIds")
+    int deleteCartItemsByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
@@ -1,20 +1,127 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.repositories.projection.CartLineView;
+import com.ecommerce.project.repositories.projection.CartProductView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
-    @Query("SELECT c FROM Cart c WHERE c.user.email = ?1")
-    Cart findCartByEmail(String email);
+    /**
+     * Reads a user's cart and its lines in one query. A cart without items yields a single row
+     * whose line columns are null; a user without a cart yields no rows.
+     *
+     * @param userId the owner of the cart
+     * @return one row per cart line
+     */
+    @Query("SELECT new com.ecommerce.project.repositories.projection.CartLineView(c.cartId, c.version, c.totalPrice, "
+            + "p.productId, ci.quantity, ci.productPrice, ci.discount) "
+            + "FROM Cart c LEFT JOIN c.cartItems ci LEFT JOIN ci.product p WHERE c.user.userId = :userId")
+    List<CartLineView> findCartLinesByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT c FROM Cart c WHERE c.user.email = ?1 AND c.id = ?2")
-    Cart findCartByEmailAndCartId(String emailId, Long cartId);
+    /**
+     * Locks the row of a user's cart until the current transaction ends and reads its version.
+     * Taken by every cart write, so writers on different nodes are serialized and each one can
+     * tell whether its cached copy of the cart is current.
+     *
+     * @param userId the owner of the cart
+     * @return the version of the cart, or empty if the user has no cart
+     */
+    @Query(value = "SELECT version FROM carts WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockCartVersionByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT c FROM Cart c JOIN FETCH c.cartItems ci JOIN FETCH ci.product p WHERE p.id = ?1")
-    List<Cart> findCartsByProductId(Long productId);
+    @Query("SELECT c.user.userId FROM Cart c WHERE c.cartId = :cartId")
+    Optional<Long> findUserIdByCartId(@Param("cartId") Long cartId);
+
+    /**
+     * Adds a (possibly negative) amount to the total of a cart without reading it first and bumps
+     * its version. Every write to the lines of a cart ends with this statement.
+     *
+     * @param cartId the id of the cart
+     * @param delta  the amount to add
+     * @return the new version of the cart
+     */
+    @Query(value = "UPDATE carts SET total_price = total_price + :delta, version = version + 1 "
+            + "WHERE cart_id = :cartId RETURNING version", nativeQuery = true)
+    long addToTotalPrice(@Param("cartId") Long cartId, @Param("delta") double delta);
+
+    /**
+     * Moves the total of every cart holding the product by the difference between the new and the
+     * stored line price, and bumps the version of every cart whose lines will change. Must run
+     * before the cart lines themselves are repriced.
+     *
+     * @param productId    the repriced product
+     * @param productPrice the new net price of the product
+     * @param discount     the new discount of the product
+     * @return the number of updated carts
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.totalPrice = c.totalPrice + "
+            + "(SELECT SUM(ci.quantity * (:productPrice - ci.productPrice)) FROM CartItem ci "
+            + "WHERE ci.cart.cartId = c.cartId AND ci.product.id = :productId) "
+            + "WHERE c.cartId IN (SELECT ci.cart.cartId FROM CartItem ci "
+            + "WHERE ci.product.id = :productId AND (ci.productPrice <> :productPrice OR ci.discount <> :discount))")
+    int repriceCartTotals(@Param("productId") Long productId, @Param("productPrice") double productPrice,
+                          @Param("discount") double discount);
+
+    /**
+     * Subtracts the lines of the given products from the total of every cart holding them and
+     * bumps their version. Must run before the cart lines themselves are deleted.
+     *
+     * @param productIds the products being removed from all carts
+     * @return the number of updated carts
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.totalPrice = c.totalPrice - "
+            + "(SELECT SUM(ci.quantity * ci.productPrice) FROM CartItem ci "
+            + "WHERE ci.cart.cartId = c.cartId AND ci.product.id IN :productIds) "
+            + "WHERE c.cartId IN (SELECT ci.cart.cartId FROM CartItem ci WHERE ci.product.id IN :productIds)")
+    int subtractProductsFromCartTotals(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Finds cart ids greater than the given one, in id order. Used to walk the carts table in
+     * bounded pages without offset paging; the page number is ignored by callers and kept at 0.
+     *
+     * @param afterId     the last cart id already read
+     * @param pageDetails the page size
+     * @return the next page of cart ids
+     */
+    @Query("SELECT c.cartId FROM Cart c WHERE c.cartId > :afterId ORDER BY c.cartId ASC")
+    List<Long> findCartIdsAfter(@Param("afterId") Long afterId, Pageable pageDetails);
+
+    /**
+     * Reads the given carts with their lines and product details in one query, without loading
+     * any entity. A cart without items yields a single row whose line columns are null.
+     *
+     * @param cartIds the ids of the carts
+     * @return one row per cart line, ordered by cart and product id
+     */
+    @Query("SELECT new com.ecommerce.project.repositories.projection.CartProductView(c.cartId, c.totalPrice, "
+            + "p.productId, p.productName, p.description, p.image, ci.quantity, p.price, p.discount, p.netPrice) "
+            + "FROM Cart c LEFT JOIN c.cartItems ci LEFT JOIN ci.product p "
+            + "WHERE c.cartId IN :cartIds ORDER BY c.cartId ASC, p.productId ASC")
+    List<CartProductView> findCartProductsByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
+
+    /**
+     * Reads a user's cart with its lines and product details in one query, without loading any
+     * entity. A cart without items yields a single row whose line columns are null; a user
+     * without a cart yields no rows.
+     *
+     * @param userId the owner of the cart
+     * @return one row per cart line, ordered by product id
+     */
+    @Query("SELECT new com.ecommerce.project.repositories.projection.CartProductView(c.cartId, c.totalPrice, "
+            + "p.productId, p.productName, p.description, p.image, ci.quantity, p.price, p.discount, p.netPrice) "
+            + "FROM Cart c LEFT JOIN c.cartItems ci LEFT JOIN ci.product p "
+            + "WHERE c.user.userId = :userId ORDER BY p.productId ASC")
+    List<CartProductView> findCartProductsByUserId(@Param("userId") Long userId);
 }
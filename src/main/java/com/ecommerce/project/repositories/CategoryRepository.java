@@ -1,7 +1,14 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Category;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -19,4 +26,25 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return the Category entity that matches the provided name, or null if no such entity exists
      */
     Category findByCategoryName(String categoryName);
+
+    /**
+     * Scrolls through all Category entities using keyset (seek) pagination.
+     *
+     * @param position the keyset position to continue after
+     * @param sort     the sort order; the category id is appended as a tie-breaker
+     * @param limit    the maximum number of rows to return
+     * @return a window of Category entities following the given position
+     */
+    Window<Category> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Deletes a category with a single statement, bypassing the cascade to its products, which
+     * must have been deleted first.
+     *
+     * @param categoryId the id of the category
+     * @return the number of deleted categories
+     */
+    @Modifying
+    @Query("DELETE FROM Category c WHERE c.categoryId = :categoryId")
+    int deleteCategoryById(@Param("categoryId") Long categoryId);
 }
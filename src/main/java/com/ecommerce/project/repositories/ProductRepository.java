@@ -2,12 +2,28 @@ package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.repositories.projection.CatalogProductView;
+import com.ecommerce.project.repositories.projection.StockLevelView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for the Product entity.
@@ -17,6 +33,13 @@ import java.util.List;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    /**
+     * Constructor expression selecting only the columns of {@link ProductDTO}. Queries built on it
+     * never load Product entities, so the EAGER cart item association is not hydrated.
+     */
+    String PRODUCT_DTO_SELECT = "SELECT new com.ecommerce.project.payload.DTO.ProductDTO(p.productId, p.productName, "
+            + "p.description, p.image, p.quantity, p.price, p.discount, p.netPrice) FROM Product p";
+
     /**
      * Finds a list of Product entities associated with a specific Category.
      *
@@ -44,4 +67,173 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return a paginated list of Product entities that match the keyword
      */
     Page<Product> findByProductNameLikeIgnoreCase(String keyword, Pageable pageDetails);
+
+    /**
+     * Scrolls through all Product entities using keyset (seek) pagination.
+     * No count query is issued; the returned window only knows whether more rows follow.
+     *
+     * @param position the keyset position to continue after
+     * @param sort     the sort order; the product id is appended as a tie-breaker
+     * @param limit    the maximum number of rows to return
+     * @return a window of Product entities following the given position
+     */
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Finds a paginated list of all products projected straight into ProductDTOs.
+     *
+     * @param pageDetails the pagination and sorting information
+     * @return a paginated list of ProductDTOs
+     */
+    @Query(value = PRODUCT_DTO_SELECT, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductDTO> findAllProductDTOs(Pageable pageDetails);
+
+    /**
+     * Finds a paginated list of the products of a category projected into ProductDTOs,
+     * ordered by price in ascending order.
+     *
+     * @param categoryId  the id of the category used to filter the products
+     * @param pageDetails the pagination and sorting information
+     * @return a paginated list of ProductDTOs sorted by price in ascending order
+     */
+    @Query(value = PRODUCT_DTO_SELECT + " WHERE p.category.categoryId = :categoryId ORDER BY p.price ASC",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.categoryId = :categoryId")
+    Page<ProductDTO> findProductDTOsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageDetails);
+
+    /**
+     * Reads every product of the catalog with the id of its category in one query, without
+     * loading any entity. Used to build the catalog snapshot.
+     *
+     * @return one row per product, in no particular order
+     */
+    @Query("SELECT new com.ecommerce.project.repositories.projection.CatalogProductView(p.category.categoryId, "
+            + "p.productId, p.productName, p.description, p.image, p.quantity, p.price, p.discount, p.netPrice) "
+            + "FROM Product p")
+    List<CatalogProductView> findAllCatalogProducts();
+
+    /**
+     * Finds a paginated list of ProductDTOs whose product name matches a LIKE pattern, ignoring case.
+     *
+     * @param keyword     the LIKE pattern to match against the product name
+     * @param pageDetails the pagination and sorting information
+     * @return a paginated list of ProductDTOs that match the keyword
+     */
+    @Query(value = PRODUCT_DTO_SELECT + " WHERE LOWER(p.productName) LIKE LOWER(:keyword)",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE LOWER(p.productName) LIKE LOWER(:keyword)")
+    Page<ProductDTO> findProductDTOsByProductNameLikeIgnoreCase(@Param("keyword") String keyword, Pageable pageDetails);
+
+    /**
+     * Finds the ProductDTOs of the given product ids with a single IN query.
+     *
+     * @param productIds the ids of the products to load
+     * @return the matching ProductDTOs, in no particular order
+     */
+    @Query(PRODUCT_DTO_SELECT + " WHERE p.productId IN :productIds")
+    List<ProductDTO> findProductDTOsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Finds ProductDTOs with an id greater than the given one, in id order.
+     * Used to walk the whole catalog in bounded batches without offset paging.
+     *
+     * @param afterId     the last product id already read
+     * @param pageDetails the batch size (the page number is ignored by callers and kept at 0)
+     * @return the next batch of ProductDTOs
+     */
+    @Query(PRODUCT_DTO_SELECT + " WHERE p.productId > :afterId ORDER BY p.productId ASC")
+    List<ProductDTO> findProductDTOsAfter(@Param("afterId") Long afterId, Pageable pageDetails);
+
+    /**
+     * Streams every product as a ProductDTO in id order from a forward-only cursor. The fetch size
+     * bounds how many rows the driver holds at once (PostgreSQL only honours it inside a
+     * transaction), and the constructor projection keeps the rows out of the persistence context.
+     * The stream must be consumed and closed within a transaction.
+     *
+     * @return a stream of all ProductDTOs
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(PRODUCT_DTO_SELECT + " ORDER BY p.productId ASC")
+    Stream<ProductDTO> streamAllProductDTOs();
+
+    /**
+     * Finds which of the given product names already exist in a category, with a single IN query.
+     *
+     * @param categoryId   the id of the category
+     * @param productNames the candidate product names
+     * @return the names from {@code productNames} that are already taken in the category
+     */
+    @Query("SELECT p.productName FROM Product p WHERE p.category.categoryId = :categoryId AND p.productName IN :productNames")
+    List<String> findExistingProductNames(@Param("categoryId") Long categoryId, @Param("productNames") Collection<String> productNames);
+
+    /**
+     * Checks whether a category already has a product with the given name.
+     *
+     * @param categoryId  the id of the category
+     * @param productName the product name
+     * @return true if the name is taken in the category
+     */
+    boolean existsByCategoryCategoryIdAndProductName(Long categoryId, String productName);
+
+    /**
+     * Finds the category of a product without loading the product.
+     *
+     * @param productId the id of the product
+     * @return the category id, or empty if the product does not exist
+     */
+    @Query("SELECT p.category.categoryId FROM Product p WHERE p.productId = :productId")
+    Optional<Long> findCategoryIdByProductId(@Param("productId") Long productId);
+
+    /**
+     * Finds the ids of the products of a category in id order. Used to delete a category in
+     * bounded chunks; the page number is ignored by callers and kept at 0.
+     *
+     * @param categoryId  the id of the category
+     * @param pageDetails the chunk size
+     * @return the next chunk of product ids
+     */
+    @Query("SELECT p.productId FROM Product p WHERE p.category.categoryId = :categoryId ORDER BY p.productId ASC")
+    List<Long> findProductIdsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageDetails);
+
+    long countByCategoryCategoryId(Long categoryId);
+
+    /**
+     * Deletes products with a single statement, bypassing entity cascades. Cart lines
+     * referencing the products must be removed first.
+     *
+     * @param productIds the ids of the products to delete
+     * @return the number of deleted products
+     */
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.productId IN :productIds")
+    int deleteProductsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Takes stock of a product in one statement, only if enough is left, instead of a read and a
+     * later write. The row lock taken here is held until the calling transaction ends.
+     *
+     * @param productId the id of the product
+     * @param quantity  the number of units to take
+     * @return the remaining stock and the category of the product, or an empty list if the product
+     * has less than {@code quantity}
+     */
+    @Query(value = "UPDATE products SET quantity = quantity - :quantity "
+            + "WHERE product_id = :productId AND quantity >= :quantity "
+            + "RETURNING category_id AS \"categoryId\", quantity AS \"quantity\"", nativeQuery = true)
+    List<StockLevelView> reserveStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * Gives stock of a product back.
+     *
+     * @param productId the id of the product
+     * @param quantity  the number of units to give back
+     * @return the stock now left, or an empty list if the product does not exist
+     */
+    @Query(value = "UPDATE products SET quantity = quantity + :quantity WHERE product_id = :productId "
+            + "RETURNING category_id AS \"categoryId\", quantity AS \"quantity\"", nativeQuery = true)
+    List<StockLevelView> releaseStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Query("SELECT p.quantity FROM Product p WHERE p.productId = :productId")
+    Optional<Integer> findQuantityByProductId(@Param("productId") Long productId);
 }
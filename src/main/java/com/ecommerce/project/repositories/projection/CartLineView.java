@@ -0,0 +1,17 @@
+package com.ecommerce.project.repositories.projection;
+
+/**
+ * One line of a cart as read for the cart aggregate, together with the cart it belongs to.
+ * For a cart without items a single row is returned whose line columns are null.
+ *
+ * @param cartId       the id of the cart
+ * @param version      the version of the cart
+ * @param totalPrice   the total price of the cart
+ * @param productId    the product of the line, or null for an empty cart
+ * @param quantity     the quantity in the cart
+ * @param productPrice the unit price the line was added at
+ * @param discount     the discount the line was added at
+ */
+public record CartLineView(Long cartId, Long version, Double totalPrice, Long productId, Integer quantity,
+                           Double productPrice, Double discount) {
+}
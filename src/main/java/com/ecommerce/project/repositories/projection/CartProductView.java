@@ -0,0 +1,21 @@
+package com.ecommerce.project.repositories.projection;
+
+/**
+ * One line of a cart joined with the details of its product, together with the cart it belongs
+ * to. For a cart without items a single row is returned whose line and product columns are null.
+ *
+ * @param cartId      the id of the cart
+ * @param totalPrice  the total price of the cart
+ * @param productId   the product of the line, or null for an empty cart
+ * @param productName the name of the product
+ * @param description the description of the product
+ * @param image       the image of the product
+ * @param quantity    the quantity in the cart
+ * @param price       the current price of the product
+ * @param discount    the current discount of the product
+ * @param netPrice    the current net price of the product
+ */
+public record CartProductView(Long cartId, Double totalPrice, Long productId, String productName,
+                              String description, String image, Integer quantity, Double price,
+                              Double discount, Double netPrice) {
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.project.repositories.projection;
+
+import com.ecommerce.project.payload.DTO.ProductDTO;
+
+/**
+ * One product of the public catalog together with the category it belongs to, so the whole
+ * catalog can be read in a single query and grouped by category in memory.
+ *
+ * @param categoryId  the id of the category of the product
+ * @param productId   the id of the product
+ * @param productName the name of the product
+ * @param description the description of the product
+ * @param image       the image of the product
+ * @param quantity    the quantity in stock
+ * @param price       the price of the product
+ * @param discount    the discount of the product
+ * @param netPrice    the net price of the product
+ */
+public record CatalogProductView(Long categoryId, Long productId, String productName, String description,
+                                 String image, Integer quantity, double price, double discount, double netPrice) {
+
+    public ProductDTO toProductDTO() {
+        return new ProductDTO(productId, productName, description, image, quantity, price, discount, netPrice);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.project.repositories.projection;
+
+/**
+ * Stock of a product as left by a reservation or a release, with the category of the product so
+ * listeners can find it in the per-category catalog structures.
+ */
+public interface StockLevelView {
+
+    Long getCategoryId();
+
+    Integer getQuantity();
+}
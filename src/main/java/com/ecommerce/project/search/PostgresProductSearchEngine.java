@@ -0,0 +1,138 @@
+package com.ecommerce.project.search;
+
+import com.ecommerce.project.exceptions.APIException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * PostgreSQL backed product search.
+ * <p>
+ * Products get a stored, generated {@code tsvector} column (product name weighted above description)
+ * with a GIN index, plus {@code pg_trgm} GIN indexes on name and description for fuzzy matching.
+ * A product matches when the full-text query matches or its name / description is similar enough to
+ * the keyword. Hits are ranked by {@code ts_rank} plus the trigram similarity of the name, and pages
+ * can be fetched either by offset or by keyset on (rank, product id).
+ * <p>
+ * The index lives in the database, so all nodes share it and nothing has to be kept in the heap.
+ */
+@Component
+@ConditionalOnProperty(name = "project.search.backend", havingValue = "postgres")
+public class PostgresProductSearchEngine implements ProductSearchEngine {
+    private static final Logger logger = LoggerFactory.getLogger(PostgresProductSearchEngine.class);
+
+    private static final String MATCHES = """
+            FROM products p, websearch_to_tsquery(CAST(:config AS regconfig), :keyword) q
+            WHERE p.search_vector @@ q
+               OR p.product_name % :keyword
+               OR :keyword <% p.description
+            """;
+
+    private static final String RANKED = """
+            SELECT p.product_id, CAST(ts_rank(p.search_vector, q) + similarity(p.product_name, :keyword) AS real) AS rank
+            """ + MATCHES;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${project.search.postgres.text-search-config:simple}")
+    private String textSearchConfig;
+
+    private volatile boolean ready;
+
+    /**
+     * Creates the search column and indexes if they are missing. Runs after Hibernate has created
+     * or updated the products table; every statement is idempotent.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeSchema() {
+        if (!textSearchConfig.matches("[a-z_]+")) {
+            throw new IllegalStateException("Invalid text search configuration: " + textSearchConfig);
+        }
+        List<String> statements = List.of(
+                "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+                "ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                        + "setweight(to_tsvector('" + textSearchConfig + "', coalesce(product_name, '')), 'A') || "
+                        + "setweight(to_tsvector('" + textSearchConfig + "', coalesce(description, '')), 'B')) STORED",
+                "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)",
+                "CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING GIN (product_name gin_trgm_ops)",
+                "CREATE INDEX IF NOT EXISTS idx_products_description_trgm ON products USING GIN (description gin_trgm_ops)");
+        statements.forEach(statement -> jdbcTemplate.getJdbcTemplate().execute(statement));
+        ready = true;
+        logger.info("PostgreSQL product search ready using text search configuration '{}'", textSearchConfig);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public ProductSearchHits search(String keyword, int pageNumber, int pageSize) {
+        MapSqlParameterSource params = baseParams(keyword)
+                .addValue("limit", pageSize)
+                .addValue("offset", (long) pageNumber * pageSize);
+        List<Long> productIds = jdbcTemplate.queryForList(
+                RANKED + " ORDER BY rank DESC, p.product_id ASC LIMIT :limit OFFSET :offset", params, Long.class);
+        Long totalHits = jdbcTemplate.queryForObject("SELECT COUNT(*) " + MATCHES, params, Long.class);
+        return new ProductSearchHits(productIds.stream().mapToLong(Long::longValue).toArray(),
+                totalHits == null ? 0 : totalHits, null);
+    }
+
+    @Override
+    public ProductSearchHits searchAfter(String keyword, String cursor, int pageSize) {
+        MapSqlParameterSource params = baseParams(keyword).addValue("limit", pageSize + 1);
+        String sql = "SELECT product_id, rank FROM (" + RANKED + ") ranked ";
+        if (cursor != null && !cursor.isBlank()) {
+            RankCursor after = RankCursor.decode(cursor);
+            params.addValue("afterRank", after.rank()).addValue("afterId", after.productId());
+            sql += "WHERE rank < :afterRank OR (rank = :afterRank AND product_id > :afterId) ";
+        }
+        sql += "ORDER BY rank DESC, product_id ASC LIMIT :limit";
+
+        List<RankCursor> rows = jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new RankCursor(rs.getFloat("rank"), rs.getLong("product_id")));
+        boolean hasNext = rows.size() > pageSize;
+        List<RankCursor> page = hasNext ? rows.subList(0, pageSize) : rows;
+        long[] productIds = page.stream().mapToLong(RankCursor::productId).toArray();
+        String nextCursor = hasNext ? page.get(page.size() - 1).encode() : null;
+        return new ProductSearchHits(productIds, -1, nextCursor);
+    }
+
+    private MapSqlParameterSource baseParams(String keyword) {
+        return new MapSqlParameterSource()
+                .addValue("config", textSearchConfig)
+                .addValue("keyword", keyword);
+    }
+
+    /**
+     * Keyset position in a ranked result: the rank and id of the last row returned.
+     */
+    private record RankCursor(float rank, long productId) {
+
+        private String encode() {
+            ByteBuffer buffer = ByteBuffer.allocate(Float.BYTES + Long.BYTES).putFloat(rank).putLong(productId);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+        }
+
+        private static RankCursor decode(String cursor) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+                return new RankCursor(buffer.getFloat(), buffer.getLong());
+            } catch (RuntimeException e) {
+                throw new APIException("Invalid cursor!");
+            }
+        }
+    }
+}
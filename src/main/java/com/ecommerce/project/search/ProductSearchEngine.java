@@ -0,0 +1,56 @@
+package com.ecommerce.project.search;
+
+/**
+ * Relevance ranked keyword search over the product catalog.
+ * <p>
+ * The implementation is selected with the {@code project.search.backend} property:
+ * {@code memory} (default) keeps an inverted index in each node's heap, {@code postgres} runs
+ * full-text and trigram queries against the database so every node shares one index.
+ */
+public interface ProductSearchEngine {
+
+    /**
+     * Returns true once the engine can answer queries.
+     *
+     * @return whether the engine is ready
+     */
+    boolean isReady();
+
+    /**
+     * Finds one page of matching products using offset pagination.
+     *
+     * @param keyword    the free text query
+     * @param pageNumber the zero based page to return
+     * @param pageSize   the number of ids per page
+     * @return the product ids of the page and the total number of matches
+     */
+    ProductSearchHits search(String keyword, int pageNumber, int pageSize);
+
+    /**
+     * Finds the matching products ranked after the given cursor (keyset pagination).
+     *
+     * @param keyword  the free text query
+     * @param cursor   the token returned with the previous page, or blank for the first page
+     * @param pageSize the number of ids per page
+     * @return the product ids of the page and the cursor of the next page
+     */
+    ProductSearchHits searchAfter(String keyword, String cursor, int pageSize);
+
+    /**
+     * Called after a product was created or updated.
+     *
+     * @param productId   the product id
+     * @param productName the product name
+     * @param description the product description
+     */
+    default void index(Long productId, String productName, String description) {
+    }
+
+    /**
+     * Called after a product was deleted.
+     *
+     * @param productId the product id
+     */
+    default void remove(Long productId) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.project.search;
+
+import com.ecommerce.project.event.CategoryChangedEvent;
+import com.ecommerce.project.event.ProductChangedEvent;
+import com.ecommerce.project.event.ProductsImportedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the active {@link ProductSearchEngine} in step with product and category writes.
+ */
+@Component
+public class ProductSearchEventListener {
+    @Autowired
+    private ProductSearchEngine productSearchEngine;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> productSearchEngine.index(event.productId(),
+                    event.product().getProductName(), event.product().getDescription());
+            case DELETED -> productSearchEngine.remove(event.productId());
+            default -> {
+                // Image changes do not affect search
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        event.products().forEach(product -> productSearchEngine.index(product.getProductId(),
+                product.getProductName(), product.getDescription()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() == CategoryChangedEvent.Type.DELETED) {
+            event.productIds().forEach(productSearchEngine::remove);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.project.search;
+
+/**
+ * One page of product search results.
+ *
+ * @param productIds the ids of the matching products, best match first
+ * @param totalHits  the number of products matching the query across all pages, or -1 when not counted
+ * @param nextCursor the continuation token for the following page, or null on the last page
+ */
+public record ProductSearchHits(long[] productIds, long totalHits, String nextCursor) {
+
+    public static ProductSearchHits empty() {
+        return new ProductSearchHits(new long[0], 0, null);
+    }
+}
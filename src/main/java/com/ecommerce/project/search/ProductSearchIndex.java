@@ -0,0 +1,465 @@
+package com.ecommerce.project.search;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product names and descriptions.
+ * <p>
+ * Text is split on non alphanumeric characters and lower-cased. Every term maps to a posting list of
+ * document ordinals and term weights held in plain int arrays; a match in the product name weighs more
+ * than a match in the description. A query matches products containing every query term (each term
+ * also matches as a prefix) and results are ranked by a weight * idf score.
+ * <p>
+ * The index is built from the database once the application is ready and kept current by the
+ * product write paths. Removed products are tombstoned and compacted away once they pile up.
+ * Every node holds its own copy, so this backend suits single-node or small deployments.
+ */
+@Component
+@ConditionalOnProperty(name = "project.search.backend", havingValue = "memory", matchIfMissing = true)
+public class ProductSearchIndex implements ProductSearchEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MIN_TOMBSTONES_BEFORE_COMPACTION = 1024;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private IndexData data = new IndexData();
+    private boolean rebuilding;
+    private final List<Runnable> pendingUpdates = new ArrayList<>();
+
+    private volatile boolean ready;
+
+    /**
+     * Rebuilds the whole index from the database. Updates arriving while the rebuild runs are
+     * replayed on the new index before it is swapped in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingUpdates.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexData fresh = new IndexData();
+        try {
+            long afterId = 0;
+            List<ProductDTO> batch;
+            do {
+                batch = productRepository.findProductDTOsAfter(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (ProductDTO product : batch) {
+                    fresh.add(product.getProductId(), product.getProductName(), product.getDescription());
+                    afterId = product.getProductId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            logger.error("Product search index rebuild failed: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pendingUpdates.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            data = fresh;
+            pendingUpdates.forEach(Runnable::run);
+            pendingUpdates.clear();
+            rebuilding = false;
+            ready = true;
+            logger.info("Product search index built with {} products and {} terms", fresh.liveDocs(), fresh.postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns true once the index has been built and can answer queries.
+     *
+     * @return whether the index is ready
+     */
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds a product to the index, replacing any previous version of it.
+     *
+     * @param productId   the product id
+     * @param productName the product name
+     * @param description the product description
+     */
+    @Override
+    public void index(Long productId, String productName, String description) {
+        applyUpdate(() -> {
+            data.remove(productId);
+            data.add(productId, productName, description);
+        });
+    }
+
+    /**
+     * Removes a product from the index.
+     *
+     * @param productId the product id
+     */
+    @Override
+    public void remove(Long productId) {
+        applyUpdate(() -> data.remove(productId));
+    }
+
+    /**
+     * Finds the products matching every term of the query, best match first.
+     *
+     * @param query      the free text query
+     * @param pageNumber the zero based page to return
+     * @param pageSize   the number of ids per page
+     * @return the product ids of the requested page and the total number of matches
+     */
+    @Override
+    public ProductSearchHits search(String query, int pageNumber, int pageSize) {
+        return search(query, (long) pageNumber * pageSize, Long.MIN_VALUE, Long.MIN_VALUE, pageSize);
+    }
+
+    /**
+     * Finds the products ranked after the cursor. The cursor is the rank (score and product id) of
+     * the last hit returned, so paging stays stable while the index changes underneath.
+     *
+     * @param query    the free text query
+     * @param cursor   the token returned with the previous page, or blank for the first page
+     * @param pageSize the number of ids per page
+     * @return the product ids of the page and the cursor of the next page
+     */
+    @Override
+    public ProductSearchHits searchAfter(String query, String cursor, int pageSize) {
+        long afterScore = Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            int separator = cursor.indexOf('.');
+            if (separator <= 0) {
+                throw new APIException("Invalid cursor!");
+            }
+            try {
+                afterScore = Long.parseLong(cursor.substring(0, separator), Character.MAX_RADIX);
+                afterId = Long.parseLong(cursor.substring(separator + 1), Character.MAX_RADIX);
+            } catch (NumberFormatException e) {
+                throw new APIException("Invalid cursor!");
+            }
+        }
+        return search(query, 0, afterScore, afterId, pageSize);
+    }
+
+    private ProductSearchHits search(String query, long skip, long afterScore, long afterId, int pageSize) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return ProductSearchHits.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return data.search(terms.toArray(new String[0]), skip, afterScore, afterId, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyUpdate(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            if (rebuilding) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-cased alphanumeric tokens.
+     *
+     * @param text the text to split, may be null
+     * @return the tokens in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Sorted, growable list of (ordinal, weight) pairs for one term.
+     */
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        private void append(int doc, int weight) {
+            if (size == docs.length) {
+                int capacity = size + (size >> 1) + 1;
+                docs = Arrays.copyOf(docs, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    /**
+     * Documents matched by one query term, sorted by ordinal.
+     */
+    private record TermMatches(int[] docs, float[] scores, int size) {
+    }
+
+    private static final class IndexData {
+        private final TreeMap<String, PostingList> postings = new TreeMap<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] productIds = new long[1024];
+        private int docCount;
+        private int deletedCount;
+
+        private int liveDocs() {
+            return docCount - deletedCount;
+        }
+
+        private void add(long productId, String productName, String description) {
+            int ordinal = docCount++;
+            if (ordinal == productIds.length) {
+                productIds = Arrays.copyOf(productIds, productIds.length * 2);
+            }
+            productIds[ordinal] = productId;
+            ordinals.put(productId, ordinal);
+
+            Map<String, Integer> termWeights = new HashMap<>();
+            for (String term : tokenize(productName)) {
+                termWeights.merge(term, NAME_WEIGHT, Integer::sum);
+            }
+            for (String term : tokenize(description)) {
+                termWeights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+            }
+            termWeights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new PostingList()).append(ordinal, weight));
+        }
+
+        private void remove(long productId) {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal == null) {
+                return;
+            }
+            deleted.set(ordinal);
+            deletedCount++;
+            if (deletedCount >= MIN_TOMBSTONES_BEFORE_COMPACTION && deletedCount * 2 > docCount) {
+                compact();
+            }
+        }
+
+        /**
+         * Drops tombstoned documents from every posting list and renumbers the survivors.
+         * Ordinals keep their relative order, so posting lists stay sorted.
+         */
+        private void compact() {
+            int[] remap = new int[docCount];
+            int live = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                } else {
+                    remap[doc] = live;
+                    productIds[live] = productIds[doc];
+                    live++;
+                }
+            }
+            postings.values().removeIf(list -> {
+                int kept = 0;
+                for (int i = 0; i < list.size; i++) {
+                    int doc = remap[list.docs[i]];
+                    if (doc >= 0) {
+                        list.docs[kept] = doc;
+                        list.weights[kept] = list.weights[i];
+                        kept++;
+                    }
+                }
+                list.size = kept;
+                return kept == 0;
+            });
+            ordinals.replaceAll((productId, doc) -> remap[doc]);
+            deleted.clear();
+            deletedCount = 0;
+            docCount = live;
+        }
+
+        private ProductSearchHits search(String[] terms, long skip, long afterScore, long afterId, int pageSize) {
+            TermMatches matches = null;
+            for (String term : terms) {
+                TermMatches termMatches = collect(term);
+                matches = matches == null ? termMatches : intersect(matches, termMatches);
+                if (matches.size() == 0) {
+                    return ProductSearchHits.empty();
+                }
+            }
+
+            // Rank: score descending, then product id ascending. Scores are positive, so their bit
+            // patterns sort like the values; packing the inverse score with the document ordinal lets
+            // one primitive sort order the hits by score, and ties are then put in product id order.
+            long[] ranked = new long[matches.size()];
+            int hits = 0;
+            for (int i = 0; i < matches.size(); i++) {
+                int doc = matches.docs()[i];
+                if (!deleted.get(doc)) {
+                    long inverseScore = Integer.MAX_VALUE - Float.floatToIntBits(matches.scores()[i]);
+                    ranked[hits++] = (inverseScore << 32) | doc;
+                }
+            }
+            Arrays.sort(ranked, 0, hits);
+            long[] scoreKeys = new long[hits];
+            long[] rankedIds = new long[hits];
+            for (int i = 0; i < hits; i++) {
+                scoreKeys[i] = ranked[i] >>> 32;
+                rankedIds[i] = productIds[(int) ranked[i]];
+            }
+            for (int start = 0, end; start < hits; start = end) {
+                end = start + 1;
+                while (end < hits && scoreKeys[end] == scoreKeys[start]) {
+                    end++;
+                }
+                if (end - start > 1) {
+                    Arrays.sort(rankedIds, start, end);
+                }
+            }
+
+            int first = 0;
+            while (first < hits && (scoreKeys[first] < afterScore
+                    || (scoreKeys[first] == afterScore && rankedIds[first] <= afterId))) {
+                first++;
+            }
+            int remaining = hits - first;
+            if (skip >= remaining) {
+                return new ProductSearchHits(new long[0], hits, null);
+            }
+            int from = first + (int) skip;
+            int to = (int) Math.min(hits, from + (long) pageSize);
+            long[] pageIds = Arrays.copyOfRange(rankedIds, from, to);
+            String nextCursor = to < hits
+                    ? Long.toString(scoreKeys[to - 1], Character.MAX_RADIX) + "." + Long.toString(rankedIds[to - 1], Character.MAX_RADIX)
+                    : null;
+            return new ProductSearchHits(pageIds, hits, nextCursor);
+        }
+
+        /**
+         * Collects every document containing a term starting with the given prefix.
+         */
+        private TermMatches collect(String prefix) {
+            NavigableMap<String, PostingList> lists = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+            int total = 0;
+            for (PostingList list : lists.values()) {
+                total += list.size;
+            }
+            double liveDocs = Math.max(1, liveDocs());
+
+            // Pack (ordinal, score bits) so a single primitive sort groups entries by document
+            long[] entries = new long[total];
+            int n = 0;
+            for (PostingList list : lists.values()) {
+                float idf = (float) Math.log(1.0 + liveDocs / list.size);
+                for (int i = 0; i < list.size; i++) {
+                    float score = list.weights[i] * idf;
+                    entries[n++] = ((long) list.docs[i] << 32) | (Float.floatToIntBits(score) & 0xFFFFFFFFL);
+                }
+            }
+            if (lists.size() > 1) {
+                Arrays.sort(entries);
+            }
+
+            int[] docs = new int[total];
+            float[] scores = new float[total];
+            int size = 0;
+            for (long entry : entries) {
+                int doc = (int) (entry >>> 32);
+                float score = Float.intBitsToFloat((int) entry);
+                if (size > 0 && docs[size - 1] == doc) {
+                    scores[size - 1] += score;
+                } else {
+                    docs[size] = doc;
+                    scores[size] = score;
+                    size++;
+                }
+            }
+            return new TermMatches(docs, scores, size);
+        }
+
+        private static TermMatches intersect(TermMatches left, TermMatches right) {
+            int capacity = Math.min(left.size(), right.size());
+            int[] docs = new int[capacity];
+            float[] scores = new float[capacity];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < left.size() && j < right.size()) {
+                int leftDoc = left.docs()[i];
+                int rightDoc = right.docs()[j];
+                if (leftDoc == rightDoc) {
+                    docs[size] = leftDoc;
+                    scores[size] = left.scores()[i] + right.scores()[j];
+                    size++;
+                    i++;
+                    j++;
+                } else if (leftDoc < rightDoc) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return new TermMatches(docs, scores, size);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.ecommerce.project.security;
+
+import com.ecommerce.project.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket rate limits for the sign-in and sign-up endpoints, per client IP and per username.
+ * <p>
+ * Every attempt takes a token of the client address. The username buckets only count failed
+ * sign-ins, and per username and address: a limit on the username alone would let anyone lock a
+ * known user out by failing on their behalf from anywhere, and successful sign-ins should never
+ * count against the user. Checking the username bucket and taking from it are separate steps, so
+ * concurrent attempts may fail a few more times than the capacity before they are rejected.
+ * <p>
+ * Buckets live in fixed arrays indexed by a hash of the key, so memory stays constant however many
+ * addresses or usernames an attacker cycles through. Keys sharing a stripe share a bucket, which
+ * only ever makes the limit stricter. Each bucket is locked on its own, so unrelated clients do not
+ * contend.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Bucket[] ipBuckets;
+    private final Bucket[] usernameBuckets;
+    private final double ipCapacity;
+    private final double ipRefillPerNano;
+    private final double usernameCapacity;
+    private final double usernameRefillPerNano;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public LoginRateLimiter(@Value("${project.security.login-rate-limit.stripes:4096}") int stripes,
+                            @Value("${project.security.login-rate-limit.ip.capacity:20}") int ipCapacity,
+                            @Value("${project.security.login-rate-limit.ip.per-minute:20}") int ipPerMinute,
+                            @Value("${project.security.login-rate-limit.username.capacity:5}") int usernameCapacity,
+                            @Value("${project.security.login-rate-limit.username.per-minute:5}") int usernamePerMinute) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("project.security.login-rate-limit.stripes must be a power of two");
+        }
+        this.ipBuckets = buckets(stripes, ipCapacity);
+        this.usernameBuckets = buckets(stripes, usernameCapacity);
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerNano = ipPerMinute / 60_000_000_000.0;
+        this.usernameCapacity = usernameCapacity;
+        this.usernameRefillPerNano = usernamePerMinute / 60_000_000_000.0;
+    }
+
+    /**
+     * Takes one token from the bucket of the client address and, if a username is given, checks
+     * that its sign-ins from this address have not failed too often.
+     *
+     * @param ip       the address of the client; behind a load balancer this must be the forwarded
+     *                 client address (see {@code server.forward-headers-strategy}), not the balancer's
+     * @param username the username the request is for, or null
+     * @throws TooManyRequestsException if either bucket is empty
+     */
+    public void acquire(String ip, String username) {
+        long now = System.nanoTime();
+        if (username != null && !usernameBuckets[stripe(usernameKey(ip, username))]
+                .hasToken(now, usernameCapacity, usernameRefillPerNano)) {
+            rejectedByUsername.increment();
+            throw new TooManyRequestsException("Too many failed attempts for this user, please try again later",
+                    retryAfterSeconds(usernameRefillPerNano));
+        }
+        if (!ipBuckets[stripe(ip)].tryTake(now, ipCapacity, ipRefillPerNano)) {
+            rejectedByIp.increment();
+            throw new TooManyRequestsException("Too many attempts from this address, please try again later",
+                    retryAfterSeconds(ipRefillPerNano));
+        }
+        allowed.increment();
+    }
+
+    /**
+     * Records a failed sign-in: takes one token from the bucket of the username and address.
+     *
+     * @param ip       the address of the client, as given to {@link #acquire(String, String)}
+     * @param username the username the sign-in was for
+     */
+    public void recordFailure(String ip, String username) {
+        failures.increment();
+        usernameBuckets[stripe(usernameKey(ip, username))]
+                .tryTake(System.nanoTime(), usernameCapacity, usernameRefillPerNano);
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of("stripes", ipBuckets.length, "allowed", allowed.sum(),
+                "rejectedByIp", rejectedByIp.sum(), "rejectedByUsername", rejectedByUsername.sum(),
+                "failures", failures.sum());
+    }
+
+    private static String usernameKey(String ip, String username) {
+        return username.toLowerCase() + '@' + ip;
+    }
+
+    private int stripe(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (ipBuckets.length - 1);
+    }
+
+    private static long retryAfterSeconds(double refillPerNano) {
+        return Math.max(1, (long) Math.ceil(1 / refillPerNano / 1_000_000_000.0));
+    }
+
+    private static Bucket[] buckets(int stripes, double capacity) {
+        Bucket[] buckets = new Bucket[stripes];
+        long now = System.nanoTime();
+        for (int i = 0; i < stripes; i++) {
+            buckets[i] = new Bucket(capacity, now);
+        }
+        return buckets;
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        private synchronized boolean hasToken(long now, double capacity, double refillPerNano) {
+            refill(now, capacity, refillPerNano);
+            return tokens >= 1;
+        }
+
+        private synchronized boolean tryTake(long now, double capacity, double refillPerNano) {
+            refill(now, capacity, refillPerNano);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        private void refill(long now, double capacity, double refillPerNano) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNano);
+                refilledAt = now;
+            }
+        }
+    }
+}
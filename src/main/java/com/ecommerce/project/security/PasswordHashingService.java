@@ -0,0 +1,134 @@
+package com.ecommerce.project.security;
+
+import com.ecommerce.project.exceptions.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs password hashing and verification on a small dedicated pool.
+ * <p>
+ * BCrypt is deliberately slow, so a burst of sign-ins run on the request threads would take all
+ * of them and starve every other endpoint. Here at most {@code threads} hashes run at once and at
+ * most {@code queue-capacity} wait; anything beyond that, or anything that waited longer than the
+ * timeout, is rejected straight away with 429 while the request threads stay free for the rest
+ * of the API.
+ * <p>
+ * A task is only abandoned before it starts: a waiting request that times out removes its task
+ * from the queue, and a task that is dequeued after its deadline anyway is skipped. A hash that
+ * is already running cannot be stopped, as BCrypt does not check for interrupts, so it runs to
+ * completion on its pool thread and the result is discarded.
+ */
+@Component
+public class PasswordHashingService {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long timeoutNanos;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder expiredInQueue = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public PasswordHashingService(@Value("${project.security.password-hashing.threads:2}") int threads,
+                                  @Value("${project.security.password-hashing.queue-capacity:32}") int queueCapacity,
+                                  @Value("${project.security.password-hashing.timeout-ms:2000}") long timeoutMillis) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Runs a task that hashes or verifies a password on the hashing pool and waits for it.
+     * Runtime exceptions of the task, such as a failed authentication, are rethrown as they are.
+     *
+     * @param task the hashing work
+     * @return the result of the task
+     * @throws TooManyRequestsException if the pool is saturated or the task did not finish in time
+     */
+    public <T> T run(Callable<T> task) {
+        Future<T> future;
+        long submitted = System.nanoTime();
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                if (start - submitted >= timeoutNanos) {
+                    // The caller has given up (or is about to): do not spend a hashing slot on it
+                    expiredInQueue.increment();
+                    throw new TooManyRequestsException("Too many sign-in requests, please try again shortly", 1);
+                }
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many sign-in requests, please try again shortly", 1);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Frees the queue slot if the task has not started; a running hash is not stopped
+            future.cancel(true);
+            executor.remove((Runnable) future);
+            timedOut.increment();
+            throw new TooManyRequestsException("Too many sign-in requests, please try again shortly", 1);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long completedCount = completed.sum();
+        double totalHashMillis = hashNanos.sum() / 1_000_000.0;
+        return Map.of("threads", executor.getMaximumPoolSize(),
+                "active", executor.getActiveCount(),
+                "queueDepth", executor.getQueue().size(),
+                "queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity(),
+                "completed", completedCount,
+                "rejected", rejected.sum(),
+                "timedOut", timedOut.sum(),
+                "expiredInQueue", expiredInQueue.sum(),
+                "averageHashMillis", completedCount == 0 ? 0.0 : totalHashMillis / completedCount,
+                "maxHashMillis", maxHashNanos.get() / 1_000_000.0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
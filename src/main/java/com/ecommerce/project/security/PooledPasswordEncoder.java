@@ -0,0 +1,37 @@
+package com.ecommerce.project.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder that runs the hashing of another encoder on the {@link PasswordHashingService}
+ * pool.
+ * <p>
+ * The authentication provider checks passwords through it, so a sign-in only spends the BCrypt
+ * comparison on the hashing pool. Loading the user from the database stays on the request thread,
+ * and a slow database cannot fill the hashing queue and turn sign-ins into 429s.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingService passwordHashingService;
+
+    public PooledPasswordEncoder(PasswordEncoder delegate, PasswordHashingService passwordHashingService) {
+        this.delegate = delegate;
+        this.passwordHashingService = passwordHashingService;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingService.run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingService.run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
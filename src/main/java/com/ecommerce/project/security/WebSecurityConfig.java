@@ -1,6 +1,7 @@
 package com.ecommerce.project.security;
 
 import com.ecommerce.project.enums.AppRole;
+import com.ecommerce.project.event.UserChangedEvent;
 import com.ecommerce.project.model.Role;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.repositories.RoleRepository;
@@ -8,6 +9,7 @@ import com.ecommerce.project.repositories.UserRepository;
 import com.ecommerce.project.security.jwt.security.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -44,6 +46,9 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
     /**
      * Bean definition for the AuthTokenFilter, which is responsible for validating JWT tokens in each request.
      *
@@ -56,7 +61,8 @@ public class WebSecurityConfig {
 
     /**
      * Bean definition for DaoAuthenticationProvider, which provides user authentication
-     * using an instance of UserDetailsService and a password encoder.
+     * using an instance of UserDetailsService and a password encoder. Passwords are checked on the
+     * bounded hashing pool, while the user is loaded on the request thread.
      *
      * @return the DaoAuthenticationProvider instance
      */
@@ -64,7 +70,7 @@ public class WebSecurityConfig {
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(new PooledPasswordEncoder(passwordEncoder(), passwordHashingService));
         return authProvider;
     }
 
@@ -114,6 +120,7 @@ public class WebSecurityConfig {
                                 .requestMatchers("/swagger-ui/**").permitAll()  // Permit Swagger UI
                                 .requestMatchers("/api/v1/test/**").permitAll()  // Permit test API
                                 .requestMatchers("/images/**").permitAll()  // Permit image access
+                                .requestMatchers("/api/v1/guest/**").permitAll()  // Permit guest carts held in cookies
                                 .anyRequest().authenticated()  // All other requests need authentication
                 );
 
@@ -148,7 +155,8 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public CommandLineRunner initData(RoleRepository roleRepository, UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public CommandLineRunner initData(RoleRepository roleRepository, UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                      ApplicationEventPublisher eventPublisher) {
         return args -> {
             // Retrieve or create roles
 
@@ -204,18 +212,21 @@ public class WebSecurityConfig {
             userRepository.findByUserName("user1").ifPresent(user -> {
                 user.setRoles(userRoles);  // Assign userRoles to user1
                 userRepository.save(user);  // Save the updated user
+                eventPublisher.publishEvent(new UserChangedEvent(user.getUserName()));  // Drop cached details of user1
             });
 
             // If seller1 exists, update their roles
             userRepository.findByUserName("seller1").ifPresent(seller -> {
                 seller.setRoles(sellerRoles);  // Assign sellerRoles to seller1
                 userRepository.save(seller);  // Save the updated seller
+                eventPublisher.publishEvent(new UserChangedEvent(seller.getUserName()));  // Drop cached details of seller1
             });
 
             // If admin exists, update their roles
             userRepository.findByUserName("admin").ifPresent(admin -> {
                 admin.setRoles(adminRoles);  // Assign adminRoles to admin
                 userRepository.save(admin);  // Save the updated admin
+                eventPublisher.publishEvent(new UserChangedEvent(admin.getUserName()));  // Drop cached details of admin
             });
         };
     }
@@ -1,5 +1,8 @@
 package com.ecommerce.project.security.jwt;
 
+import com.ecommerce.project.security.jwt.security.services.UserDetailsImpl;
+import com.ecommerce.project.security.jwt.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,10 +10,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -24,7 +27,8 @@ import java.io.IOException;
  * Responsibilities:
  * 1. Parse the JWT token from the request header.
  * 2. Validate the token using the `JwtUtils` utility class.
- * 3. Retrieve user details from the token and set the authentication context in Spring Security.
+ * 3. Build the user details from the token claims (reading the user from the database only when the
+ *    claims are due for revalidation) and set the authentication context in Spring Security.
  * <p>
  * This filter is crucial for securing endpoints and authenticating users based on the provided token.
  */
@@ -35,7 +39,7 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserDetailsServiceImpl userDetailsService;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -56,13 +60,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             // Parse the JWT token from the request header
             String jwt = parseJwt(request);
 
-            // If the token exists and is valid, authenticate the user
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                // Extract the username from the token
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                // Load user details from the UserDetailsService
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Verify the token once; its claims are null if it is invalid
+            Claims claims = jwt != null ? jwtUtils.verify(jwt) : null;
+            if (claims != null) {
+                // Build the user from the token; only read it from the database once the
+                // claims are due for revalidation, and then renew the token with fresh claims.
+                // The read bypasses the user details cache, whose entry may be as old as the claims
+                UserDetails userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+                if (userDetails == null) {
+                    UserDetailsImpl storedUser = userDetailsService.loadUserByUsernameUncached(claims.getSubject());
+                    response.addHeader(HttpHeaders.SET_COOKIE,
+                            jwtUtils.renewJwtCookie(storedUser, claims.getExpiration()).toString());
+                    userDetails = storedUser;
+                }
 
                 // Create an authentication token with the user's details and roles
                 UsernamePasswordAuthenticationToken authentication =
@@ -1,21 +1,39 @@
 package com.ecommerce.project.security.jwt;
 
+import com.ecommerce.project.constants.AppConstants;
 import com.ecommerce.project.security.jwt.security.services.UserDetailsImpl;
+import com.ecommerce.project.util.BoundedTtlCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.WebUtils;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
-import java.security.Key;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Utility class for handling JSON Web Token (JWT) operations such as generation, validation,
@@ -26,18 +44,54 @@ import java.util.Date;
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    // JWT secret key used for signing and verifying tokens, injected from application properties
-    @Value("${spring.app.jwtSecret}")
-    private String jwtSecret;
-
     // JWT expiration time in milliseconds, injected from application properties
     @Value("${spring.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    // How long the user claims of a token are trusted before they are checked against the database
+    @Value("${project.security.jwt.revalidate-after-ms:300000}")
+    private long jwtRevalidateAfterMs;
+
     // Inject the JWT cookie name from application properties
     @Value("${spring.app.jwtCookieName}")
     private String jwtCookie;
 
+    // Guest cart cookie name and lifetime in milliseconds, injected from application properties
+    @Value("${spring.app.guestCartCookieName}")
+    private String guestCartCookie;
+
+    @Value("${spring.app.guestCartExpirationMs}")
+    private long guestCartExpirationMs;
+
+    // Claims identifying the user, so a request can be authenticated without reading the database
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String EMAIL_CLAIM = "email";
+    private static final String ROLES_CLAIM = "roles";
+
+    // Claim holding the guest cart lines as "productId:quantity,productId:quantity"
+    private static final String GUEST_CART_CLAIM = "lines";
+
+    // Keys and parsers are immutable and thread-safe, so they are built once from the secret
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final SecretKey guestCartKey;
+    private final JwtParser guestCartParser;
+
+    // Claims of recently verified tokens, kept until they expire
+    private final VerifiedTokenCache verifiedTokens;
+
+    public JwtUtils(@Value("${spring.app.jwtSecret}") String jwtSecret,
+                    @Value("${project.security.jwt.verified-cache-size:10000}") int verifiedCacheSize,
+                    @Value("${project.security.jwt.verified-cache-ttl-seconds:300}") long verifiedCacheTtlSeconds) {
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.guestCartKey = deriveGuestCartKey(jwtSecret);
+        this.guestCartParser = Jwts.parser().verifyWith(guestCartKey).build();
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? new VerifiedTokenCache(verifiedCacheSize, verifiedCacheTtlSeconds * 1000)
+                : null;
+    }
+
     /**
      * Retrieves the JWT token from cookies in the incoming HTTP request.
      *
@@ -58,9 +112,25 @@ public class JwtUtils {
      * @return A ResponseCookie containing the JWT token
      */
     public ResponseCookie generateJwtCookie(UserDetailsImpl userDetails) {
-        // Generate the JWT token based on the username
-        String jwt = generateTokenFromUsername(userDetails.getUsername());
+        // Generate the JWT token carrying the user's id, email and roles
+        String jwt = generateTokenFromUser(userDetails, new Date((new Date()).getTime() + jwtExpirationMs));
+        return jwtCookie(jwt);
+    }
 
+    /**
+     * Re-issues the JWT cookie of a user whose token claims were just checked against the
+     * database. The new token carries the current claims but keeps the original expiration, so
+     * renewing never extends the session.
+     *
+     * @param userDetails the user as currently stored
+     * @param expiration  the expiration of the token being renewed
+     * @return A ResponseCookie containing the renewed JWT token
+     */
+    public ResponseCookie renewJwtCookie(UserDetailsImpl userDetails, Date expiration) {
+        return jwtCookie(generateTokenFromUser(userDetails, expiration));
+    }
+
+    private ResponseCookie jwtCookie(String jwt) {
         // Create a ResponseCookie with the token, setting it to HTTP only
         ResponseCookie cookie = ResponseCookie.from(jwtCookie, jwt)
                 .path("/api/v1") // Set the cookie's path to the API endpoint
@@ -111,65 +181,269 @@ public class JwtUtils {
     }
 
     /**
-     * Generates a JWT token for a given user, using the username as the subject.
+     * Generates a JWT token for a given user, using the username as the subject. The user's id,
+     * email and roles are embedded as claims so requests can be authenticated from the token alone.
      *
-     * @param username the username
+     * @param userDetails the user
+     * @param expiration  the expiration time of the token
      * @return a signed JWT token
      */
-    public String generateTokenFromUsername(String username) {
+    public String generateTokenFromUser(UserDetailsImpl userDetails, Date expiration) {
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
         return Jwts.builder()
-                .subject(username) // Set the username as the token's subject
+                .subject(userDetails.getUsername()) // Set the username as the token's subject
+                .claim(USER_ID_CLAIM, userDetails.getId())
+                .claim(EMAIL_CLAIM, userDetails.getEmail())
+                .claim(ROLES_CLAIM, roles)
                 .issuedAt(new Date()) // Set the current time as the issue time
-                .expiration(new Date((new Date()).getTime() + jwtExpirationMs)) // Set the expiration time
-                .signWith(key()) // Sign the token using the secret key
+                .expiration(expiration) // Set the expiration time
+                .signWith(key) // Sign the token using the secret key
                 .compact();
     }
 
     /**
-     * Extracts the username (subject) from a given JWT token.
-     *
-     * @param token the JWT token
-     * @return the username encoded in the token
-     */
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) key()) // Use the secret key to verify the token
-                .build()
-                .parseSignedClaims(token) // Parse the claims from the token
-                .getPayload()
-                .getSubject(); // Retrieve the subject (username)
-    }
-
-    /**
-     * Creates and returns the key used for signing and verifying JWT tokens.
+     * Builds the authenticated user from the claims of a verified token, without reading the
+     * database. Claims are only trusted for the revalidation interval after the token was issued,
+     * so role changes and deleted users are picked up once the token is renewed.
      *
-     * @return a Key object generated from the secret key
+     * @param claims the claims of a verified token
+     * @return the user, or null if the token is due for revalidation or carries no user claims
      */
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (issuedAt == null || userId == null || roles == null
+                || System.currentTimeMillis() - issuedAt.getTime() >= jwtRevalidateAfterMs) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString()))
+                .toList();
+        return new UserDetailsImpl(userId, claims.getSubject(), claims.get(EMAIL_CLAIM, String.class), null, authorities);
     }
 
     /**
-     * Validates a JWT token to ensure it is properly signed, not expired, and conforms to expectations.
+     * Verifies a JWT token once and returns its claims: the signature, the expiry and the format
+     * are checked in a single parse. Tokens verified recently are answered from a bounded cache
+     * until they expire, so a client sending the same token on every request is parsed once.
+     * Cache lookups take no lock and do not hash the token beyond its String hash code, so
+     * request threads do not queue behind each other here.
      *
-     * @param authToken the JWT token to validate
-     * @return true if the token is valid, false otherwise
+     * @param authToken the JWT token to verify
+     * @return the claims of the token (the username is the subject), or null if it is invalid
      */
-    public boolean validateJwtToken(String authToken) {
+    public Claims verify(String authToken) {
+        if (verifiedTokens != null && authToken != null) {
+            Claims cached = verifiedTokens.get(authToken);
+            if (cached != null) {
+                return cached;
+            }
+        }
         try {
             logger.debug("Validating JWT token");
-            Jwts.parser().verifyWith((SecretKey) key()).build().parseSignedClaims(authToken);
-            return true; // Token is valid
+            Claims claims = parser.parseSignedClaims(authToken).getPayload();
+            Date expiration = claims.getExpiration();
+            if (verifiedTokens != null && expiration != null) {
+                verifiedTokens.put(authToken, claims, expiration.getTime());
+            }
+            return claims; // Token is valid
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (SecurityException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false; // Token is invalid
+        return null; // Token is invalid
     }
-}
 
+    public BoundedTtlCache.CacheStats verifiedTokenStats() {
+        return verifiedTokens != null ? verifiedTokens.stats() : null;
+    }
+
+    /**
+     * Verified claims by token, read on every authenticated request.
+     * <p>
+     * Unlike {@link BoundedTtlCache} this is not access ordered: a hit is a plain read of a
+     * {@link ConcurrentHashMap}, with no lock and no write. The price is that there is no LRU
+     * eviction. Entries leave when they are found expired, and once the map is full a sweep
+     * removes the expired ones (at most one sweep at a time); if it is still full, new tokens are
+     * simply verified without being cached until room frees up. Only tokens with a valid
+     * signature are ever stored, so clients cannot fill the map with keys of their choice.
+     */
+    private static final class VerifiedTokenCache {
+        private final ConcurrentHashMap<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+        private final int maxSize;
+        private final long ttlMillis;
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+
+        private VerifiedTokenCache(int maxSize, long ttlMillis) {
+            this.maxSize = maxSize;
+            this.ttlMillis = ttlMillis;
+        }
+
+        private Claims get(String token) {
+            VerifiedToken verified = tokens.get(token);
+            if (verified == null) {
+                misses.increment();
+                return null;
+            }
+            if (verified.expiresAt() <= System.currentTimeMillis()) {
+                if (tokens.remove(token, verified)) {
+                    expirations.increment();
+                }
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return verified.claims();
+        }
+
+        private void put(String token, Claims claims, long tokenExpiresAt) {
+            long now = System.currentTimeMillis();
+            long expiresAt = Math.min(tokenExpiresAt, now + ttlMillis);
+            if (expiresAt <= now) {
+                return;
+            }
+            if (tokens.size() >= maxSize && !sweep(now)) {
+                return;
+            }
+            tokens.put(token, new VerifiedToken(claims, expiresAt));
+        }
+
+        // Removes the expired entries; returns whether there is room afterwards
+        private boolean sweep(long now) {
+            if (sweeping.compareAndSet(false, true)) {
+                try {
+                    Iterator<VerifiedToken> iterator = tokens.values().iterator();
+                    while (iterator.hasNext()) {
+                        if (iterator.next().expiresAt() <= now) {
+                            iterator.remove();
+                            expirations.increment();
+                        }
+                    }
+                } finally {
+                    sweeping.set(false);
+                }
+            }
+            return tokens.size() < maxSize;
+        }
+
+        private BoundedTtlCache.CacheStats stats() {
+            long hitCount = hits.sum();
+            long total = hitCount + misses.sum();
+            return new BoundedTtlCache.CacheStats(hitCount, misses.sum(), 0, expirations.sum(),
+                    tokens.size(), maxSize, total == 0 ? 0.0 : (double) hitCount / total);
+        }
+    }
+
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+
+    /**
+     * Reads the guest cart from its signed cookie. A missing, tampered, expired or oversized
+     * cookie yields an empty cart.
+     *
+     * @param request The HTTPServletRequest containing cookies
+     * @return the quantity of each product, in the order the products were added
+     */
+    public Map<Long, Integer> getGuestCartFromCookies(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, guestCartCookie);
+        if (cookie == null || cookie.getValue() == null || cookie.getValue().isBlank()) {
+            return Map.of();
+        }
+        try {
+            String lines = guestCartParser
+                    .parseSignedClaims(cookie.getValue())
+                    .getPayload()
+                    .get(GUEST_CART_CLAIM, String.class);
+            return decodeGuestCartLines(lines);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Ignoring invalid guest cart cookie: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Creates the cookie holding a guest cart. The lines are kept in a compact claim of a token
+     * signed with a key derived from the JWT secret, so the server stores nothing until the
+     * guest signs in.
+     *
+     * @param lines the quantity of each product
+     * @return a ResponseCookie holding the guest cart, or clearing it if the cart is empty
+     */
+    public ResponseCookie generateGuestCartCookie(Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            return getCleanGuestCartCookie();
+        }
+        StringJoiner encoded = new StringJoiner(",");
+        lines.forEach((productId, quantity) -> encoded.add(productId + ":" + quantity));
+        String token = Jwts.builder()
+                .claim(GUEST_CART_CLAIM, encoded.toString())
+                .issuedAt(new Date())
+                .expiration(new Date((new Date()).getTime() + guestCartExpirationMs))
+                .signWith(guestCartKey)
+                .compact();
+        return ResponseCookie.from(guestCartCookie, token)
+                .path("/api/v1")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(Duration.ofMillis(guestCartExpirationMs))
+                .build();
+    }
+
+    public ResponseCookie getCleanGuestCartCookie() {
+        return ResponseCookie.from(guestCartCookie, "")
+                .path("/api/v1")
+                .maxAge(0)
+                .build();
+    }
+
+    private static Map<Long, Integer> decodeGuestCartLines(String lines) {
+        if (lines == null || lines.isBlank()) {
+            return Map.of();
+        }
+        String[] pairs = lines.split(",");
+        if (pairs.length > AppConstants.MAX_GUEST_CART_LINES) {
+            throw new IllegalArgumentException("too many guest cart lines");
+        }
+        Map<Long, Integer> decoded = new LinkedHashMap<>();
+        for (String pair : pairs) {
+            int separator = pair.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("invalid guest cart line");
+            }
+            int quantity = Integer.parseInt(pair.substring(separator + 1));
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("invalid guest cart line");
+            }
+            decoded.put(Long.parseLong(pair.substring(0, separator)), quantity);
+        }
+        return Collections.unmodifiableMap(decoded);
+    }
+
+    /**
+     * Derives the guest cart signing key from the JWT secret. Using a separate key means a guest
+     * cart token can never pass as a login token, or the other way around.
+     */
+    private static SecretKey deriveGuestCartKey(String jwtSecret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(Decoders.BASE64.decode(jwtSecret), "HmacSHA256"));
+            return Keys.hmacShaKeyFor(mac.doFinal("guest-cart".getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive the guest cart key", e);
+        }
+    }
+}
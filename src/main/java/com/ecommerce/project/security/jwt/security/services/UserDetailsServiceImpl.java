@@ -1,28 +1,123 @@
 package com.ecommerce.project.security.jwt.security.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.ecommerce.project.event.UserChangedEvent;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.util.BoundedTtlCache;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads users for authentication, backed by a bounded cache of user details keyed by username.
+ * <p>
+ * Entries expire after the configured time-to-live at the latest, and are dropped as soon as a
+ * {@link UserChangedEvent} for the user is committed. A load that ran while such a change
+ * committed is not cached, so it cannot put the old details back. The events only cover changes
+ * made by this process, so callers that must see the stored user use
+ * {@link #loadUserByUsernameUncached(String)}.
+ */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    private final BoundedTtlCache<String, UserDetailsImpl> users;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    public UserDetailsServiceImpl(@Value("${project.cache.user-details.max-size:10000}") int maxSize,
+                                  @Value("${project.cache.user-details.ttl-seconds:300}") long ttlSeconds) {
+        this.users = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetailsImpl cached = users.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        return load(username);
+    }
+
+    /**
+     * Reads the user from the database, bypassing the cache, and refreshes the cached entry with
+     * the result. Used where the details must be current, such as when the claims of a token are
+     * revalidated; a cached entry may be up to the time-to-live old, or stale because the change
+     * was committed on another node.
+     *
+     * @param username the username of the user
+     * @return the user as currently stored
+     * @throws UsernameNotFoundException if the user does not exist
+     */
+    @Transactional
+    public UserDetailsImpl loadUserByUsernameUncached(String username) throws UsernameNotFoundException {
+        return load(username);
+    }
+
+    private UserDetailsImpl load(String username) {
+        long invalidation = invalidations.get();
+        long start = System.nanoTime();
         User user = userRepository.findByUserName(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        long loadTime = System.nanoTime() - start;
+        loads.increment();
+        loadNanos.add(loadTime);
+        maxLoadNanos.accumulateAndGet(loadTime, Math::max);
+
+        synchronized (this) {
+            if (invalidations.get() == invalidation) {
+                users.put(username, userDetails);
+            }
+        }
+        return userDetails;
+    }
 
-        return UserDetailsImpl.build(user);
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        invalidations.incrementAndGet();
+        users.invalidate(event.username());
     }
 
+    /**
+     * Removes users whose time-to-live has passed.
+     */
+    @Scheduled(fixedDelayString = "${project.cache.user-details.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        users.cleanUp();
+    }
+
+    /**
+     * Returns the cache counters together with the time spent loading users on a miss.
+     *
+     * @return the current cache statistics
+     */
+    public UserDetailsCacheStats stats() {
+        long loadCount = loads.sum();
+        double totalLoadMillis = loadNanos.sum() / 1_000_000.0;
+        return new UserDetailsCacheStats(users.stats(), loadCount,
+                loadCount == 0 ? 0.0 : totalLoadMillis / loadCount, maxLoadNanos.get() / 1_000_000.0);
+    }
 
+    /**
+     * Point-in-time view of the user details cache and of the loads behind its misses.
+     */
+    public record UserDetailsCacheStats(BoundedTtlCache.CacheStats cache, long loads,
+                                        double averageLoadMillis, double maxLoadMillis) {
+    }
 }
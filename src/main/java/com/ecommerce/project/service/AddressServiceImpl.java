@@ -2,6 +2,7 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.AddressMapper;
 import com.ecommerce.project.model.Address;
 import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.Product;
@@ -9,15 +10,20 @@ import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.DTO.AddressDTO;
 import com.ecommerce.project.payload.DTO.ProductDTO;
 import com.ecommerce.project.payload.response.AddressResponse;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.payload.response.ProductResponse;
 import com.ecommerce.project.repositories.AddressRepository;
 import com.ecommerce.project.repositories.UserRepository;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.util.KeysetCursor;
+import com.ecommerce.project.util.PagingUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -31,32 +37,30 @@ public class AddressServiceImpl implements AddressService{
     private UserRepository userRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private AddressMapper addressMapper;
 
     @Override
     public AddressDTO createAddress(AddressDTO addressDTO, User loggedInUser) {
-        Address address = modelMapper.map(addressDTO, Address.class);
+        Address address = addressMapper.toEntity(addressDTO);
         List<Address> addressList = loggedInUser.getAddresses();
         addressList.add(address);
         loggedInUser.setAddresses(addressList);
         address.setUser(loggedInUser);
         Address savedAddress = addressRepository.save(address);
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return addressMapper.toDTO(savedAddress);
 
     }
 
     @Override
     public AddressResponse getAllAddresses(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
+        Sort sortByAndOrder = PagingUtil.sort(sortBy, sortOrder);
+        Pageable pageDetails = PageRequest.of(pageNumber, PagingUtil.cappedPageSize(pageSize), sortByAndOrder);
         Page<Address> addressPage = addressRepository.findAll(pageDetails);
         List<Address> addresses = addressPage.getContent();
         if(addresses.isEmpty()){
             throw new APIException("No addresses found!");
         }
-        List<AddressDTO> adddressDtos = addresses.stream().map(product -> modelMapper.map(addresses, AddressDTO.class))
+        List<AddressDTO> adddressDtos = addresses.stream().map(addressMapper::toDTO)
                 .toList();
         AddressResponse addressResponse = new AddressResponse();
         addressResponse.setResponseObject(adddressDtos);
@@ -68,6 +72,20 @@ public class AddressServiceImpl implements AddressService{
         return addressResponse;
     }
 
+    @Override
+    public CursorResponse<AddressDTO> scrollAddresses(String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        int limit = PagingUtil.cappedPageSize(pageSize);
+        ScrollPosition position = KeysetCursor.decode(cursor, Address.class, sortBy);
+        Window<Address> addressWindow = addressRepository.findAllBy(position, PagingUtil.sort(sortBy, sortOrder), Limit.of(limit));
+        if(addressWindow.isEmpty() && position.isInitial()){
+            throw new APIException("No addresses found!");
+        }
+        List<AddressDTO> addressDTOS = addressWindow.getContent().stream().map(addressMapper::toDTO)
+                .toList();
+        String nextCursor = addressWindow.hasNext() ? KeysetCursor.encode(addressWindow.positionAt(addressWindow.size() - 1)) : null;
+        return new CursorResponse<>(addressDTOS, limit, nextCursor, !addressWindow.hasNext());
+    }
+
     @Override
     public String deleteAddress(Long addressId) {
         Address addressDetails = addressRepository.findById(addressId).orElseThrow(()-> new ResourceNotFoundException("Address", "addressId", addressId));
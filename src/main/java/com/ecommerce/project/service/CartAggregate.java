@@ -0,0 +1,200 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.repositories.projection.CartLineView;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable in-memory view of one user's cart: its id, version, total and lines.
+ * <p>
+ * Lines are held in parallel primitive arrays sorted by product id, so looking up a product is a
+ * binary search and a cached cart costs a few small arrays instead of entity graphs.
+ * Changes produce a new aggregate; instances can be shared between threads freely.
+ */
+public final class CartAggregate {
+
+    private final long cartId;
+    private final long userId;
+    private final long version;
+    private final double totalPrice;
+    private final long[] productIds;
+    private final int[] quantities;
+    private final double[] prices;
+    private final double[] discounts;
+
+    private CartAggregate(long cartId, long userId, long version, double totalPrice,
+                          long[] productIds, int[] quantities, double[] prices, double[] discounts) {
+        this.cartId = cartId;
+        this.userId = userId;
+        this.version = version;
+        this.totalPrice = totalPrice;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.prices = prices;
+        this.discounts = discounts;
+    }
+
+    public static CartAggregate empty(long cartId, long userId) {
+        return new CartAggregate(cartId, userId, 0, 0.0, new long[0], new int[0], new double[0], new double[0]);
+    }
+
+    /**
+     * Builds the aggregate from the rows of a cart.
+     *
+     * @param userId the owner of the cart
+     * @param rows   the rows of one cart, see {@link CartLineView}
+     * @return the aggregate, or null if there are no rows (the user has no cart)
+     */
+    public static CartAggregate of(long userId, List<CartLineView> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        CartLineView[] lines = rows.stream()
+                .filter(row -> row.productId() != null)
+                .sorted((a, b) -> Long.compare(a.productId(), b.productId()))
+                .toArray(CartLineView[]::new);
+        long[] productIds = new long[lines.length];
+        int[] quantities = new int[lines.length];
+        double[] prices = new double[lines.length];
+        double[] discounts = new double[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            productIds[i] = lines[i].productId();
+            quantities[i] = lines[i].quantity() == null ? 0 : lines[i].quantity();
+            prices[i] = lines[i].productPrice() == null ? 0.0 : lines[i].productPrice();
+            discounts[i] = lines[i].discount() == null ? 0.0 : lines[i].discount();
+        }
+        CartLineView first = rows.get(0);
+        double totalPrice = first.totalPrice() == null ? 0.0 : first.totalPrice();
+        return new CartAggregate(first.cartId(), userId, first.version(), totalPrice, productIds, quantities, prices, discounts);
+    }
+
+    public long cartId() {
+        return cartId;
+    }
+
+    public long userId() {
+        return userId;
+    }
+
+    /**
+     * @return the version of the cart row this aggregate reflects
+     */
+    public long version() {
+        return version;
+    }
+
+    public double totalPrice() {
+        return totalPrice;
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    /**
+     * @return the index of the product's line, or a negative value if it is not in the cart
+     */
+    public int indexOf(long productId) {
+        return Arrays.binarySearch(productIds, productId);
+    }
+
+    public boolean contains(long productId) {
+        return indexOf(productId) >= 0;
+    }
+
+    public long productIdAt(int index) {
+        return productIds[index];
+    }
+
+    public int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    public double priceAt(int index) {
+        return prices[index];
+    }
+
+    public double discountAt(int index) {
+        return discounts[index];
+    }
+
+    /**
+     * @return the product ids of all lines, in product id order
+     */
+    public long[] productIds() {
+        return productIds.clone();
+    }
+
+    /**
+     * Returns the same aggregate at another version, once a write has bumped the cart row.
+     */
+    public CartAggregate withVersion(long version) {
+        return new CartAggregate(cartId, userId, version, totalPrice, productIds, quantities, prices, discounts);
+    }
+
+    /**
+     * Returns an aggregate in which the product's line is added or replaced.
+     *
+     * @param totalPrice the new total of the cart
+     */
+    public CartAggregate withLine(long productId, int quantity, double price, double discount, double totalPrice) {
+        int index = indexOf(productId);
+        if (index >= 0) {
+            int[] newQuantities = quantities.clone();
+            double[] newPrices = prices.clone();
+            double[] newDiscounts = discounts.clone();
+            newQuantities[index] = quantity;
+            newPrices[index] = price;
+            newDiscounts[index] = discount;
+            return new CartAggregate(cartId, userId, version, totalPrice, productIds, newQuantities, newPrices, newDiscounts);
+        }
+        int insertAt = -index - 1;
+        int size = productIds.length;
+        long[] newProductIds = new long[size + 1];
+        int[] newQuantities = new int[size + 1];
+        double[] newPrices = new double[size + 1];
+        double[] newDiscounts = new double[size + 1];
+        copyAround(productIds, newProductIds, insertAt, size);
+        copyAround(quantities, newQuantities, insertAt, size);
+        copyAround(prices, newPrices, insertAt, size);
+        copyAround(discounts, newDiscounts, insertAt, size);
+        newProductIds[insertAt] = productId;
+        newQuantities[insertAt] = quantity;
+        newPrices[insertAt] = price;
+        newDiscounts[insertAt] = discount;
+        return new CartAggregate(cartId, userId, version, totalPrice, newProductIds, newQuantities, newPrices, newDiscounts);
+    }
+
+    /**
+     * Returns an aggregate without the product's line.
+     *
+     * @param totalPrice the new total of the cart
+     */
+    public CartAggregate withoutLine(long productId, double totalPrice) {
+        int index = indexOf(productId);
+        if (index < 0) {
+            return new CartAggregate(cartId, userId, version, totalPrice, productIds, quantities, prices, discounts);
+        }
+        int size = productIds.length;
+        long[] newProductIds = new long[size - 1];
+        int[] newQuantities = new int[size - 1];
+        double[] newPrices = new double[size - 1];
+        double[] newDiscounts = new double[size - 1];
+        copyWithout(productIds, newProductIds, index, size);
+        copyWithout(quantities, newQuantities, index, size);
+        copyWithout(prices, newPrices, index, size);
+        copyWithout(discounts, newDiscounts, index, size);
+        return new CartAggregate(cartId, userId, version, totalPrice, newProductIds, newQuantities, newPrices, newDiscounts);
+    }
+
+    private static void copyAround(Object source, Object target, int gap, int size) {
+        System.arraycopy(source, 0, target, 0, gap);
+        System.arraycopy(source, gap, target, gap + 1, size - gap);
+    }
+
+    private static void copyWithout(Object source, Object target, int index, int size) {
+        System.arraycopy(source, 0, target, 0, index);
+        System.arraycopy(source, index + 1, target, index, size - index - 1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Write-through cache of cart aggregates keyed by user id.
+ * <p>
+ * A cart is loaded with a single query on first use and then kept in memory. Writers derive the
+ * new aggregate from the one they read and publish it only once their transaction has committed;
+ * if another writer got there first, or the transaction rolled back, the entry is dropped and the
+ * next request reloads it. Entries idle for longer than the configured time are evicted.
+ * <p>
+ * To keep a slow load from publishing a cart that a concurrent commit has already changed, every
+ * commit bumps a generation counter for the user (striped, so memory stays bounded) and a load is
+ * only cached if the generation did not move while it ran.
+ * <p>
+ * The cache only sees the commits of this process, so a cached cart may be stale once a request
+ * of the same user was served by another node. Writers therefore read the cart through
+ * {@link #getForUpdate(Long)}, which locks the cart row and reads its version first: every write
+ * bumps the version, so a cached aggregate is used only if it reflects exactly the committed
+ * cart, and is reloaded otherwise.
+ */
+@Component
+public class CartAggregateCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final BoundedTtlCache<Long, CartAggregate> carts;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    public CartAggregateCache(@Value("${project.cache.carts.max-size:10000}") int maxSize,
+                              @Value("${project.cache.carts.idle-seconds:1800}") long idleSeconds) {
+        this.carts = new BoundedTtlCache<>(maxSize, idleSeconds * 1000, true);
+    }
+
+    /**
+     * Locks the user's cart row until the current transaction ends and returns the cart, from the
+     * cache if the cached aggregate has the version of the row and loaded otherwise.
+     *
+     * @param userId the owner of the cart
+     * @return the cart, or null if the user has no cart yet
+     */
+    public CartAggregate getForUpdate(Long userId) {
+        Long version = cartRepository.lockCartVersionByUserId(userId).orElse(null);
+        if (version == null) {
+            return null;
+        }
+        CartAggregate cached = carts.get(userId);
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+        long generation = generations.get(stripe(userId));
+        CartAggregate loaded = CartAggregate.of(userId, cartRepository.findCartLinesByUserId(userId));
+        if (loaded != null) {
+            synchronized (this) {
+                if (generations.get(stripe(userId)) == generation) {
+                    carts.put(userId, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Publishes {@code updated} once the current transaction commits, provided the cache still
+     * holds {@code expected}; otherwise, and on rollback, the user's entry is dropped.
+     *
+     * @param expected the aggregate the change was derived from, or null for a new cart
+     * @param updated  the aggregate after the change
+     */
+    public void putAfterCommit(CartAggregate expected, CartAggregate updated) {
+        Long userId = updated.userId();
+        afterCompletion(committed -> {
+            synchronized (this) {
+                generations.incrementAndGet(stripe(userId));
+                if (committed && expected == null) {
+                    carts.put(userId, updated);
+                } else if (!committed || !carts.replace(userId, expected, updated)) {
+                    carts.invalidate(userId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the user's cart once the current transaction completes.
+     *
+     * @param userId the owner of the cart
+     */
+    public void evictAfterCommit(Long userId) {
+        afterCompletion(committed -> {
+            synchronized (this) {
+                generations.incrementAndGet(stripe(userId));
+                carts.invalidate(userId);
+            }
+        });
+    }
+
+    /**
+     * Drops every cached cart holding the product once the current transaction completes. Used
+     * after set-based statements that change many carts at once without knowing their owners,
+     * so every generation is bumped to keep loads running concurrently from caching stale lines.
+     *
+     * @param productIds the products whose cart lines changed
+     */
+    public void evictProductsAfterCommit(Collection<Long> productIds) {
+        long[] sorted = productIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        afterCompletion(committed -> {
+            synchronized (this) {
+                for (int i = 0; i < GENERATION_STRIPES; i++) {
+                    generations.incrementAndGet(i);
+                }
+                carts.invalidateIf((userId, cart) -> containsAny(cart, sorted));
+            }
+        });
+    }
+
+    private static boolean containsAny(CartAggregate cart, long[] sortedProductIds) {
+        for (int i = 0; i < cart.size(); i++) {
+            if (Arrays.binarySearch(sortedProductIds, cart.productIdAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes carts that have been idle for longer than the idle time.
+     */
+    @Scheduled(fixedDelayString = "${project.cache.carts.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        carts.cleanUp();
+    }
+
+    public BoundedTtlCache.CacheStats stats() {
+        return carts.stats();
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId & (GENERATION_STRIPES - 1));
+    }
+
+    private static void afterCompletion(CompletionAction action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run(status == STATUS_COMMITTED);
+            }
+
+            // Publish before the other completion callbacks, e.g. the events of the transaction
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface CompletionAction {
+        void run(boolean committed);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the writes to one cart within this process.
+ * <p>
+ * Cart writes read the cart, derive the change and write it back, so two requests of the same
+ * user (two tabs, a double click) must not interleave. Each writer takes an in-process lock for
+ * the cart's owner — a user has exactly one cart, and it may not exist yet when the first write
+ * starts — before its transaction begins, and releases it once the transaction has completed,
+ * so the next writer reads the committed cart. Writers of the same process therefore queue here
+ * without holding a pooled database connection. The cart row lock taken inside the transaction
+ * (see {@link CartAggregateCache#getForUpdate(Long)}) is still needed to keep out writers on
+ * other nodes; on a single node only the set-based reprice and removal statements ever contend
+ * for it. Locks are striped, so memory stays bounded and unrelated users only rarely share a
+ * stripe.
+ * <p>
+ * Waiting and holding times are recorded to show whether carts are contended and whether the
+ * stripe count is large enough.
+ */
+@Component
+public class CartLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder holdNanos = new LongAdder();
+    private final AtomicLong maxHoldNanos = new AtomicLong();
+
+    public CartLocks(@Value("${project.cart.locks.stripes:256}") int stripes,
+                     @Value("${project.cart.locks.timeout-ms:5000}") long timeoutMillis) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("project.cart.locks.stripes must be a power of two");
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Runs a write to the user's cart while holding its lock. The write must open its own
+     * transaction, so that the lock is taken before a connection is checked out and released
+     * only after the transaction has completed. Taking the lock again from within the write is
+     * allowed.
+     *
+     * @param userId the owner of the cart
+     * @param write  the write, running its own transaction
+     * @return the result of the write
+     * @throws APIException if the cart stays locked by another request for longer than the timeout
+     */
+    public <T> T callLocked(Long userId, Supplier<T> write) {
+        ReentrantLock lock = stripes[stripe(userId)];
+        if (!lock.isHeldByCurrentThread() && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cart locks must be taken before the transaction begins");
+        }
+        long start = System.nanoTime();
+        if (!lock.tryLock()) {
+            contended.increment();
+            boolean locked;
+            try {
+                locked = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIException("Interrupted while waiting for the cart");
+            }
+            if (!locked) {
+                timeouts.increment();
+                throw new APIException("The cart is being updated by another request, please try again");
+            }
+        }
+        long acquired = System.nanoTime();
+        long waited = acquired - start;
+        acquisitions.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        try {
+            return write.get();
+        } finally {
+            long held = System.nanoTime() - acquired;
+            holdNanos.add(held);
+            maxHoldNanos.accumulateAndGet(held, Math::max);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the lock counters.
+     *
+     * @return the current lock statistics
+     */
+    public LockStats stats() {
+        long acquisitionCount = acquisitions.sum();
+        double totalWaitMillis = waitNanos.sum() / 1_000_000.0;
+        double totalHoldMillis = holdNanos.sum() / 1_000_000.0;
+        int locked = 0;
+        int queued = 0;
+        for (ReentrantLock lock : stripes) {
+            if (lock.isLocked()) {
+                locked++;
+            }
+            queued += lock.getQueueLength();
+        }
+        return new LockStats(stripes.length, acquisitionCount, contended.sum(), timeouts.sum(),
+                totalWaitMillis, acquisitionCount == 0 ? 0.0 : totalWaitMillis / acquisitionCount,
+                maxWaitNanos.get() / 1_000_000.0,
+                acquisitionCount == 0 ? 0.0 : totalHoldMillis / acquisitionCount,
+                maxHoldNanos.get() / 1_000_000.0, locked, queued);
+    }
+
+    private int stripe(Long userId) {
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (stripes.length - 1);
+    }
+
+    /**
+     * Point-in-time view of the lock counters. {@code lockedStripes} and {@code queuedThreads}
+     * are sampled without locking and only approximate.
+     */
+    public record LockStats(int stripes, long acquisitions, long contended, long timeouts,
+                            double totalWaitMillis, double averageWaitMillis, double maxWaitMillis,
+                            double averageHoldMillis, double maxHoldMillis,
+                            int lockedStripes, int queuedThreads) {
+    }
+}
@@ -1,21 +1,47 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.DTO.CartDTO;
-import jakarta.transaction.Transactional;
+import com.ecommerce.project.payload.DTO.CartOperationDTO;
+import com.ecommerce.project.payload.response.CursorResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface CartService {
     CartDTO addProductToCart(Long productId, Integer quantity);
 
-    List<CartDTO> getAllCarts();
+    CartDTO applyCartOperations(List<CartOperationDTO> operations);
+
+    int mergeGuestCart(Long userId, Map<Long, Integer> lines);
+
+    CursorResponse<CartDTO> scrollCarts(String cursor, Integer pageSize);
+
+    long exportCarts(OutputStream outputStream) throws IOException;
 
-    @Transactional
     CartDTO updateProductQuantityInCart(Long productId, Integer quantity);
 
-    CartDTO getCart(String emailId, Long cartId);
+    QuantityChangeResult applyQuantityChanges(Long userId, List<QuantityChange> changes);
+
+    CartDTO getUserCart(Long userId);
 
     String deleteProductFromCart(Long cartId, Long productId);
 
-    void updateProductInCarts(Long cartId, Long productId);
+    int repriceProductInCarts(Long productId, double productPrice, double discount);
+
+    int removeProductsFromCarts(Collection<Long> productIds);
+
+    /**
+     * A change of the quantity of one cart line by {@code delta}.
+     */
+    record QuantityChange(Long productId, int delta) {
+    }
+
+    /**
+     * The cart after a batch of quantity changes, and the changes that failed by their position.
+     */
+    record QuantityChangeResult(CartDTO cart, Map<Integer, RuntimeException> failures) {
+    }
 }
@@ -1,24 +1,49 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.constants.AppConstants;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
 import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.CartItem;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.payload.DTO.CartDTO;
+import com.ecommerce.project.payload.DTO.CartOperationDTO;
 import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.repositories.CartItemRepository;
 import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.ProductRepository;
-import com.ecommerce.project.util.AuthUtil;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.repositories.projection.CartProductView;
+import com.ecommerce.project.util.CurrentUserContext;
+import com.ecommerce.project.util.KeysetCursor;
+import com.ecommerce.project.util.NdjsonWriter;
+import com.ecommerce.project.util.PagingUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 public class CartServiceImpl implements CartService {
@@ -33,174 +58,550 @@ public class CartServiceImpl implements CartService {
     private CartItemRepository cartItemRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUserContext currentUser;
+
+    @Autowired
+    private CartAggregateCache cartAggregateCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CartLocks cartLocks;
 
     @Autowired
-    private AuthUtil authUtil;
+    private TransactionTemplate transactionTemplate;
 
     @Override
     public CartDTO addProductToCart(Long productId, Integer quantity) {
-        Cart cart  = createCart();
+        if (quantity == null || quantity <= 0) {
+            throw new APIException("The quantity must be positive");
+        }
+        Long userId = currentUser.userId();
+        return toCartDTO(writeCart(userId, () -> addLine(userId, productId, quantity)));
+    }
+
+    private CartAggregate addLine(Long userId, Long productId, int quantity) {
+        CartAggregate cart = cartAggregateCache.getForUpdate(userId);
+        boolean newCart = cart == null;
+        if (newCart) {
+            cart = createCart(userId);
+        }
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cart.getCartId(), productId);
-
-        if (cartItem != null) {
+        if (cart.contains(productId)) {
             throw new APIException("Product " + product.getProductName() + " already exists in the cart");
         }
 
-        if (product.getQuantity() == 0) {
-            throw new APIException(product.getProductName() + " is not available");
-        }
-
-        if (product.getQuantity() < quantity) {
-            throw new APIException("Please, make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity() + ".");
-        }
+        reserveStock(productId, product.getProductName(), quantity);
 
         CartItem newCartItem = new CartItem();
 
         newCartItem.setProduct(product);
-        newCartItem.setCart(cart);
+        newCartItem.setCart(cartRepository.getReferenceById(cart.cartId()));
         newCartItem.setQuantity(quantity);
         newCartItem.setDiscount(product.getDiscount());
         newCartItem.setProductPrice(product.getNetPrice());
 
         cartItemRepository.save(newCartItem);
 
-        product.setQuantity(product.getQuantity());
+        double delta = product.getNetPrice() * quantity;
+        long version = cartRepository.addToTotalPrice(cart.cartId(), delta);
+
+        CartAggregate updatedCart = cart.withLine(productId, quantity, product.getNetPrice(), product.getDiscount(),
+                cart.totalPrice() + delta).withVersion(version);
+        cartAggregateCache.putAfterCommit(newCart ? null : cart, updatedCart);
+
+        return updatedCart;
+    }
+
+    @Override
+    public CartDTO applyCartOperations(List<CartOperationDTO> operations) {
+        if(operations == null || operations.isEmpty()){
+            throw new APIException("No cart operations given!");
+        }
+        if(operations.size() > AppConstants.MAX_CART_OPERATIONS){
+            throw new APIException("At most " + AppConstants.MAX_CART_OPERATIONS + " cart operations can be applied per request!");
+        }
+        Long userId = currentUser.userId();
+        return toCartDTO(writeCart(userId, () -> applyOperations(userId, operations, false)));
+    }
+
+    /**
+     * Adds the lines of a guest cart to the user's cart in one batch. Products deleted since
+     * they were added to the guest cart are skipped.
+     *
+     * @return the number of guest cart lines
+     */
+    @Override
+    public int mergeGuestCart(Long userId, Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        List<CartOperationDTO> operations = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) ->
+                operations.add(new CartOperationDTO(CartOperationDTO.Type.ADD, productId, quantity)));
+        writeCart(userId, () -> applyOperations(userId, operations, true));
+        return operations.size();
+    }
+
+    /**
+     * Runs a write to the user's cart in a transaction of its own. The cart lock is taken before
+     * the transaction begins, so requests queued behind another write of the same cart do not
+     * hold a pooled connection while they wait, and it is released only after the transaction
+     * has completed and the cart cache has been updated.
+     */
+    private <T> T writeCart(Long userId, Supplier<T> write) {
+        return cartLocks.callLocked(userId, () -> transactionTemplate.execute(status -> write.get()));
+    }
+
+    /**
+     * Applies a list of operations to the user's cart in the current transaction.
+     * <p>
+     * The operations are first folded into the target quantity of every touched line, with the
+     * referenced products read by one IN query. Stock is then reserved or released for the net
+     * change of each line, in product id order so that concurrent batches cannot deadlock. Only
+     * the net changes are written: one DELETE for removed lines, one JDBC batch for changed lines,
+     * batched inserts for new lines and one relative update of the cart total. Any invalid
+     * operation or missing stock throws and rolls the whole batch back, reservations included.
+     */
+    private CartAggregate applyOperations(Long userId, List<CartOperationDTO> operations, boolean skipMissingProducts) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperationDTO operation = operations.get(i);
+            if (operation == null || operation.getType() == null || operation.getProductId() == null) {
+                throw new APIException("Cart operation " + i + " needs a type and a productId");
+            }
+            Integer quantity = operation.getQuantity();
+            if (operation.getType() == CartOperationDTO.Type.ADD && (quantity == null || quantity <= 0)) {
+                throw new APIException("Cart operation " + i + " must add a positive quantity");
+            }
+            if (operation.getType() == CartOperationDTO.Type.SET && (quantity == null || quantity < 0)) {
+                throw new APIException("Cart operation " + i + " cannot set a negative quantity");
+            }
+            productIds.add(operation.getProductId());
+        }
 
-        cart.setTotalPrice(cart.getTotalPrice() + (product.getNetPrice() * quantity));
+        Map<Long, ProductDTO> products = productRepository.findProductDTOsByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId) && !skipMissingProducts) {
+                throw new ResourceNotFoundException("Product", "productId", productId);
+            }
+        }
+        if (skipMissingProducts) {
+            operations = operations.stream()
+                    .filter(operation -> products.containsKey(operation.getProductId()))
+                    .toList();
+        }
 
-        cartRepository.save(cart);
+        CartAggregate cart = cartAggregateCache.getForUpdate(userId);
+        boolean newCart = cart == null;
+        if (newCart) {
+            cart = createCart(userId);
+        }
 
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
+        // Target quantity of every touched line, in first-touched order; 0 removes the line
+        Map<Long, Integer> targets = new LinkedHashMap<>();
+        for (CartOperationDTO operation : operations) {
+            Long productId = operation.getProductId();
+            ProductDTO product = products.get(productId);
+            int line = cart.indexOf(productId);
+            int current = targets.containsKey(productId) ? targets.get(productId)
+                    : line >= 0 ? cart.quantityAt(line) : 0;
+            int target = switch (operation.getType()) {
+                case ADD -> current + operation.getQuantity();
+                case SET -> operation.getQuantity();
+                case REMOVE -> {
+                    if (current == 0) {
+                        throw new APIException("Product " + product.getProductName() + " not available in the cart!!!");
+                    }
+                    yield 0;
+                }
+            };
+            targets.put(productId, target);
+        }
 
-        List<CartItem> cartItems = cart.getCartItems();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(targets).entrySet()) {
+            Long productId = entry.getKey();
+            int line = cart.indexOf(productId);
+            int change = entry.getValue() - (line >= 0 ? cart.quantityAt(line) : 0);
+            if (change > 0) {
+                reserveStock(productId, products.get(productId).getProductName(), change);
+            } else {
+                stockReservationService.release(productId, -change);
+            }
+        }
 
-        Stream<ProductDTO> productStream = cartItems.stream().map(item -> {
-            ProductDTO map = modelMapper.map(item.getProduct(), ProductDTO.class);
-            map.setQuantity(item.getQuantity());
-            return map;
-        });
+        return writeLines(cart, newCart, targets, products);
+    }
 
-        cartDTO.setProductDTOS(productStream.toList());
+    /**
+     * Writes the target quantity of the touched lines of a cart with as few statements as
+     * possible and publishes the new aggregate once the transaction commits. Stock must already
+     * have been reserved or released.
+     *
+     * @param cart     the cart the targets were computed from
+     * @param newCart  whether the cart was created by this transaction
+     * @param targets  the new quantity of every touched line; 0 removes the line
+     * @param products the current details of the touched products
+     * @return the cart after the change
+     */
+    private CartAggregate writeLines(CartAggregate cart, boolean newCart, Map<Long, Integer> targets,
+                                     Map<Long, ProductDTO> products) {
+        Long cartId = cart.cartId();
+        List<Long> removed = new ArrayList<>();
+        List<Object[]> changed = new ArrayList<>();
+        List<CartItem> added = new ArrayList<>();
+        double total = cart.totalPrice();
+        CartAggregate updatedCart = cart;
+        for (Map.Entry<Long, Integer> entry : targets.entrySet()) {
+            Long productId = entry.getKey();
+            int quantity = entry.getValue();
+            ProductDTO product = products.get(productId);
+            int line = cart.indexOf(productId);
+            double oldLineTotal = line >= 0 ? cart.priceAt(line) * cart.quantityAt(line) : 0;
+            if (quantity == 0) {
+                if (line >= 0) {
+                    removed.add(productId);
+                    total -= oldLineTotal;
+                    updatedCart = updatedCart.withoutLine(productId, total);
+                }
+                continue;
+            }
+            if (line >= 0) {
+                if (cart.quantityAt(line) == quantity && cart.priceAt(line) == product.getNetPrice()
+                        && cart.discountAt(line) == product.getDiscount()) {
+                    continue;
+                }
+                changed.add(new Object[]{quantity, product.getNetPrice(), product.getDiscount(), cartId, productId});
+            } else {
+                CartItem cartItem = new CartItem();
+                cartItem.setProduct(productRepository.getReferenceById(productId));
+                cartItem.setCart(cartRepository.getReferenceById(cartId));
+                cartItem.setQuantity(quantity);
+                cartItem.setDiscount(product.getDiscount());
+                cartItem.setProductPrice(product.getNetPrice());
+                added.add(cartItem);
+            }
+            total += product.getNetPrice() * quantity - oldLineTotal;
+            updatedCart = updatedCart.withLine(productId, quantity, product.getNetPrice(), product.getDiscount(), total);
+        }
 
-        return cartDTO;
+        if (!removed.isEmpty()) {
+            cartItemRepository.deleteCartItemsByCartIdAndProductIdIn(cartId, removed);
+        }
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE cart_items SET quantity = ?, product_price = ?, discount = ? "
+                    + "WHERE cart_id = ? AND product_id = ?", changed);
+        }
+        if (!added.isEmpty()) {
+            cartItemRepository.saveAll(added);
+        }
+        if (updatedCart != cart) {
+            updatedCart = updatedCart.withVersion(cartRepository.addToTotalPrice(cartId, total - cart.totalPrice()));
+            cartAggregateCache.putAfterCommit(newCart ? null : cart, updatedCart);
+        } else if (newCart) {
+            cartAggregateCache.putAfterCommit(null, cart);
+        }
+        return updatedCart;
+    }
+
+    /**
+     * Takes stock for a cart line, failing with the usual messages if too little is left.
+     */
+    private void reserveStock(Long productId, String productName, int quantity) {
+        if (stockReservationService.reserve(productId, quantity)) {
+            return;
+        }
+        int available = stockReservationService.available(productId);
+        if (available == 0) {
+            throw new APIException(productName + " is not available");
+        }
+        throw new APIException("Please, make an order of the " + productName
+                + " less than or equal to the quantity " + available + ".");
     }
 
     @Override
-    public List<CartDTO> getAllCarts() {
-       List<Cart> carts = cartRepository.findAll();
-       if(carts.isEmpty()){
-           throw new APIException("No cart exists!");
-       }
-
-       List<CartDTO> cartDTOS = carts.stream().map(cart -> {
-           CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-           List<ProductDTO> productDTOS = cart.getCartItems()
-                   .stream()
-                   .map(p -> modelMapper.map(p.getProduct(), ProductDTO.class)).collect(Collectors.toList());
-
-           cartDTO.setProductDTOS(productDTOS);
-           return cartDTO;
-       }).collect(Collectors.toList());
-       return cartDTOS;
+    public CursorResponse<CartDTO> scrollCarts(String cursor, Integer pageSize) {
+        int limit = PagingUtil.cappedPageSize(pageSize);
+        ScrollPosition position = KeysetCursor.decode(cursor, Cart.class, "cartId");
+        Long afterId = position.isInitial() ? 0L : (Long) ((KeysetScrollPosition) position).getKeys().get("cartId");
+        List<Long> cartIds = cartRepository.findCartIdsAfter(afterId, PageRequest.of(0, limit + 1));
+        boolean hasNext = cartIds.size() > limit;
+        if (hasNext) {
+            cartIds = cartIds.subList(0, limit);
+        }
+        if (cartIds.isEmpty() && position.isInitial()) {
+            throw new APIException("No cart exists!");
+        }
+        String nextCursor = hasNext
+                ? KeysetCursor.encode(ScrollPosition.forward(Map.of("cartId", cartIds.get(cartIds.size() - 1))))
+                : null;
+        return new CursorResponse<>(loadCartDTOs(cartIds), limit, nextCursor, !hasNext);
     }
 
-    @Transactional
+    /**
+     * Streams every cart as NDJSON. The carts table is walked in keyset pages of
+     * {@link AppConstants#MAX_PAGE_SIZE} carts, two queries each, so no cursor or transaction
+     * stays open while the client reads.
+     */
     @Override
-    public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
+    public long exportCarts(OutputStream outputStream) throws IOException {
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream, 500)) {
+            Long afterId = 0L;
+            List<Long> cartIds;
+            do {
+                cartIds = cartRepository.findCartIdsAfter(afterId, PageRequest.of(0, AppConstants.MAX_PAGE_SIZE));
+                for (CartDTO cartDTO : loadCartDTOs(cartIds)) {
+                    writer.write(cartDTO);
+                }
+                if (!cartIds.isEmpty()) {
+                    afterId = cartIds.get(cartIds.size() - 1);
+                }
+            } while (cartIds.size() == AppConstants.MAX_PAGE_SIZE);
+            return writer.rows();
+        }
+    }
 
-        String emailId = authUtil.loggedInEmail();
-        Cart userCart = cartRepository.findCartByEmail(emailId);
-        Long cartId  = userCart.getCartId();
+    /**
+     * Builds the responses for a page of carts from a single joined projection query.
+     */
+    private List<CartDTO> loadCartDTOs(List<Long> cartIds) {
+        if (cartIds.isEmpty()) {
+            return List.of();
+        }
+        return toCartDTOs(cartRepository.findCartProductsByCartIdIn(cartIds));
+    }
 
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
+    /**
+     * Groups joined cart rows, ordered by cart, into responses. Each product reports the
+     * quantity in the cart.
+     */
+    private static List<CartDTO> toCartDTOs(List<CartProductView> rows) {
+        Map<Long, CartDTO> cartDTOs = new LinkedHashMap<>();
+        for (CartProductView row : rows) {
+            CartDTO cartDTO = cartDTOs.computeIfAbsent(row.cartId(),
+                    cartId -> new CartDTO(cartId, row.totalPrice(), new ArrayList<>()));
+            if (row.productId() != null) {
+                cartDTO.getProductDTOS().add(new ProductDTO(row.productId(), row.productName(), row.description(),
+                        row.image(), row.quantity(), row.price(), row.discount(), row.netPrice()));
+            }
+        }
+        return new ArrayList<>(cartDTOs.values());
+    }
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+    /**
+     * Applies a burst of +1/-1 clicks on one user's cart as a single write. The clicks are
+     * replayed in arrival order against the cart and the stock, so each one succeeds or fails
+     * exactly as it would have on its own; failed clicks are reported by their position and
+     * skipped, and the net change of the others is reserved and written together.
+     *
+     * @return the cart after the change and the failures by position in {@code changes}
+     */
+    @Override
+    public QuantityChangeResult applyQuantityChanges(Long userId, List<QuantityChange> changes) {
+        return writeCart(userId, () -> replayQuantityChanges(userId, changes));
+    }
 
-        if (product.getQuantity() == 0) {
-            throw new APIException(product.getProductName() + " is not available");
+    private QuantityChangeResult replayQuantityChanges(Long userId, List<QuantityChange> changes) {
+        CartAggregate cart = cartAggregateCache.getForUpdate(userId);
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart", "userId", userId);
+        }
+        // Product id order, so that concurrent flushes reserve stock without deadlocking
+        Map<Long, List<Integer>> changesByProduct = new TreeMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            changesByProduct.computeIfAbsent(changes.get(i).productId(), id -> new ArrayList<>()).add(i);
+        }
+        Map<Long, ProductDTO> products = productRepository.findProductDTOsByProductIdIn(changesByProduct.keySet()).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+
+        Map<Integer, RuntimeException> failures = new HashMap<>();
+        Map<Long, Integer> targets = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<Integer>> entry : changesByProduct.entrySet()) {
+            Long productId = entry.getKey();
+            List<Integer> indexes = entry.getValue();
+            ProductDTO product = products.get(productId);
+            if (product == null) {
+                indexes.forEach(i -> failures.put(i, new ResourceNotFoundException("Product", "productId", productId)));
+                continue;
+            }
+            int line = cart.indexOf(productId);
+            int original = line >= 0 ? cart.quantityAt(line) : 0;
+
+            Map<Integer, RuntimeException> productFailures = new HashMap<>();
+            int target = replayClicks(product, line >= 0, original, product.getQuantity(), indexes, changes, productFailures);
+            if (target > original && !stockReservationService.reserve(productId, target - original)) {
+                // The stock read above was stale: replay against the current stock, and if that
+                // is taken too before we get it, let only the decrements through
+                productFailures.clear();
+                target = replayClicks(product, line >= 0, original, stockReservationService.available(productId),
+                        indexes, changes, productFailures);
+                if (target > original && !stockReservationService.reserve(productId, target - original)) {
+                    productFailures.clear();
+                    target = replayClicks(product, line >= 0, original, 0, indexes, changes, productFailures);
+                }
+            }
+            if (target < original) {
+                stockReservationService.release(productId, original - target);
+            }
+            failures.putAll(productFailures);
+            if (productFailures.size() < indexes.size()) {
+                targets.put(productId, target);
+            }
         }
 
-        if (product.getQuantity() < quantity) {
-            throw new APIException("Please, make an order of the " + product.getProductName()
-                    + " less than or equal to the quantity " + product.getQuantity() + ".");
+        CartAggregate updatedCart = targets.isEmpty() ? cart : writeLines(cart, false, targets, products);
+        return new QuantityChangeResult(toCartDTO(updatedCart), failures);
+    }
+
+    /**
+     * Replays the clicks on one product in order, with the same checks as
+     * {@link #updateProductQuantityInCart(Long, Integer)}, and records the ones that fail.
+     *
+     * @return the resulting quantity of the line
+     */
+    private static int replayClicks(ProductDTO product, boolean inCart, int quantity, int available,
+                                    List<Integer> indexes, List<QuantityChange> changes,
+                                    Map<Integer, RuntimeException> failures) {
+        for (int i : indexes) {
+            int delta = changes.get(i).delta();
+            if (!inCart) {
+                failures.put(i, new APIException("Product " + product.getProductName() + " not available in the cart!!!"));
+                continue;
+            }
+            int newQuantity = quantity + delta;
+            if (newQuantity < 0) {
+                failures.put(i, new APIException("The resulting quantity cannot be negative"));
+                continue;
+            }
+            if (delta > available) {
+                failures.put(i, new APIException(available == 0 ? product.getProductName() + " is not available"
+                        : "Please, make an order of the " + product.getProductName()
+                        + " less than or equal to the quantity " + available + "."));
+                continue;
+            }
+            available -= delta;
+            quantity = newQuantity;
+            inCart = quantity > 0;
         }
+        return quantity;
+    }
 
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
+    @Override
+    public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
+        Long userId = currentUser.userId();
+        return toCartDTO(writeCart(userId, () -> changeQuantity(userId, productId, quantity)));
+    }
 
-        if (cartItem == null) {
+    private CartAggregate changeQuantity(Long userId, Long productId, int quantity) {
+        CartAggregate cart = cartAggregateCache.getForUpdate(userId);
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart", "userId", userId);
+        }
+        Long cartId = cart.cartId();
+
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+
+        int line = cart.indexOf(productId);
+
+        if (line < 0) {
             throw new APIException("Product " + product.getProductName() + " not available in the cart!!!");
         }
 
         // Calculate new quantity
-        int newQuantity = cartItem.getQuantity() + quantity;
+        int newQuantity = cart.quantityAt(line) + quantity;
 
         // Validation to prevent negative quantities
         if(newQuantity < 0){
             throw new APIException("The resulting quantity cannot be negative");
         }
 
+        if (quantity > 0) {
+            reserveStock(productId, product.getProductName(), quantity);
+        } else {
+            stockReservationService.release(productId, -quantity);
+        }
+
+        double oldLineTotal = cart.priceAt(line) * cart.quantityAt(line);
+        CartAggregate updatedCart;
         if(newQuantity == 0){
-            deleteProductFromCart(cartId, productId);
+            cartItemRepository.deleteCartItemByProductIdAndCartId(cartId, productId);
+            long version = cartRepository.addToTotalPrice(cartId, -oldLineTotal);
+            updatedCart = cart.withoutLine(productId, cart.totalPrice() - oldLineTotal).withVersion(version);
         }else{
-            cartItem.setProductPrice(product.getNetPrice());
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartItem.setDiscount(product.getDiscount());
-            cart.setTotalPrice(cart.getTotalPrice() + (cartItem.getProductPrice() * quantity));
-            cartRepository.save(cart);
+            cartItemRepository.updateCartItem(cartId, productId, newQuantity, product.getNetPrice(), product.getDiscount());
+            double delta = product.getNetPrice() * newQuantity - oldLineTotal;
+            long version = cartRepository.addToTotalPrice(cartId, delta);
+            updatedCart = cart.withLine(productId, newQuantity, product.getNetPrice(), product.getDiscount(),
+                    cart.totalPrice() + delta).withVersion(version);
         }
-        CartItem updatedItem = cartItemRepository.save(cartItem);
-        if(updatedItem.getQuantity() == 0){
-            cartItemRepository.deleteById(updatedItem.getCart_item_id());
-        }
-
-
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-        List<CartItem> cartItems = cart.getCartItems();
-
-        Stream<ProductDTO> productStream = cartItems.stream().map(item -> {
-            ProductDTO prd = modelMapper.map(item.getProduct(), ProductDTO.class);
-            prd.setQuantity(item.getQuantity());
-            return prd;
-        });
-
-
-        cartDTO.setProductDTOS(productStream.toList());
+        cartAggregateCache.putAfterCommit(cart, updatedCart);
 
-        return cartDTO;
+        return updatedCart;
     }
 
-
-    @Override
-    public CartDTO getCart(String emailId, Long cartId) {
-        Cart cart = cartRepository.findCartByEmailAndCartId(emailId, cartId);
-        if(cart == null){
-            throw new ResourceNotFoundException("Cart", "cartId", cartId);
+    /**
+     * Builds the response for a cart aggregate. Product details are read with a single IN query;
+     * each product reports the quantity in the cart.
+     */
+    private CartDTO toCartDTO(CartAggregate cart) {
+        CartDTO cartDTO = new CartDTO();
+        cartDTO.setCartId(cart.cartId());
+        cartDTO.setTotalPrice(cart.totalPrice());
+        if (cart.size() == 0) {
+            return cartDTO;
+        }
+        Map<Long, ProductDTO> productsById = productRepository.findProductDTOsByProductIdIn(
+                        Arrays.stream(cart.productIds()).boxed().toList()).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+        List<ProductDTO> productDTOS = new ArrayList<>(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            ProductDTO productDTO = productsById.get(cart.productIdAt(i));
+            if (productDTO != null) {
+                productDTO.setQuantity(cart.quantityAt(i));
+                productDTOS.add(productDTO);
+            }
         }
-        cart.getCartItems().forEach(c -> c.getProduct().setQuantity(c.getQuantity()));
-        List<ProductDTO> productDTOS = cart.getCartItems().stream()
-                .map(p -> modelMapper.map(p.getProduct(), ProductDTO.class))
-                .toList();
-
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
         cartDTO.setProductDTOS(productDTOS);
         return cartDTO;
+    }
 
+    /**
+     * Reads the user's cart for display with a single join query straight into the response,
+     * without loading any entity.
+     */
+    @Override
+    public CartDTO getUserCart(Long userId) {
+        List<CartDTO> carts = toCartDTOs(cartRepository.findCartProductsByUserId(userId));
+        if (carts.isEmpty()) {
+            throw new ResourceNotFoundException("Cart", "userId", userId);
+        }
+        return carts.get(0);
     }
 
-    @Transactional
     @Override
     public String deleteProductFromCart(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
+        Long userId = cartRepository.findUserIdByCartId(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
+        return writeCart(userId, () -> deleteLine(userId, cartId, productId));
+    }
+
+    private String deleteLine(Long userId, Long cartId, Long productId) {
+        cartRepository.lockCartVersionByUserId(userId);
 
         CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
 
@@ -208,49 +609,59 @@ public class CartServiceImpl implements CartService {
             throw new ResourceNotFoundException("Product", "productId", productId);
         }
 
-        cart.setTotalPrice(cart.getTotalPrice() -
-                (cartItem.getProductPrice() * cartItem.getQuantity()));
-
         cartItemRepository.deleteCartItemByProductIdAndCartId(cartId, productId);
+        cartRepository.addToTotalPrice(cartId, -(cartItem.getProductPrice() * cartItem.getQuantity()));
+        stockReservationService.release(productId, cartItem.getQuantity());
+        cartAggregateCache.evictAfterCommit(userId);
 
         return "Product " + cartItem.getProduct().getProductName() + " removed from the cart !!!";
     }
 
+    /**
+     * Propagates a new price to every cart holding the product with two set-based updates: the
+     * cart totals first, from the difference to the stored line price, then the lines themselves.
+     * Must run before the product row is written in the same transaction, to lock in the same
+     * cart-then-product order as the cart writes.
+     *
+     * @return the number of carts whose total changed
+     */
+    @Transactional
     @Override
-    public void updateProductInCarts(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
-
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
-
-        if (cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " not available in the cart!!!");
+    public int repriceProductInCarts(Long productId, double productPrice, double discount) {
+        int carts = cartRepository.repriceCartTotals(productId, productPrice, discount);
+        int lines = cartItemRepository.repriceCartItems(productId, productPrice, discount);
+        if (carts > 0 || lines > 0) {
+            cartAggregateCache.evictProductsAfterCommit(List.of(productId));
         }
-
-        double cartPrice = cart.getTotalPrice()
-                - (cartItem.getProductPrice() * cartItem.getQuantity());
-
-        cartItem.setProductPrice(product.getNetPrice());
-
-        cart.setTotalPrice(cartPrice
-                + (cartItem.getProductPrice() * cartItem.getQuantity()));
-
-        cartItem = cartItemRepository.save(cartItem);
+        return carts;
     }
 
-    private Cart createCart() {
-        Cart userCart  = cartRepository.findCartByEmail(authUtil.loggedInEmail());
-        if(userCart != null){
-            return userCart;
+    /**
+     * Removes the products from every cart with two set-based statements: the cart totals are
+     * reduced first, then the cart lines are deleted.
+     *
+     * @return the number of carts that held any of the products
+     */
+    @Transactional
+    @Override
+    public int removeProductsFromCarts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        int carts = cartRepository.subtractProductsFromCartTotals(productIds);
+        int lines = cartItemRepository.deleteCartItemsByProductIdIn(productIds);
+        if (lines > 0) {
+            cartAggregateCache.evictProductsAfterCommit(productIds);
         }
+        return carts;
+    }
 
+    private CartAggregate createCart(Long userId) {
         Cart cart = new Cart();
         cart.setTotalPrice(0.00);
-        cart.setUser(authUtil.loggedInUser());
+        cart.setUser(userRepository.getReferenceById(userId));
 
-        return cartRepository.save(cart);
+        Cart savedCart = cartRepository.save(cart);
+        return CartAggregate.empty(savedCart.getCartId(), userId);
     }
 }
@@ -0,0 +1,224 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.DTO.CartDTO;
+import com.ecommerce.project.util.CurrentUserContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Merges bursts of +1/-1 quantity clicks on a cart into one write.
+ * <p>
+ * The first click of a user opens a short window; clicks arriving within it are queued behind it.
+ * When the window closes the queued clicks are applied in arrival order in a single transaction
+ * ({@link CartService#applyQuantityChanges}) and every waiting request receives the resulting cart,
+ * or the error its own click would have produced. Only one batch per user is in flight at a time:
+ * clicks arriving while a batch is written form the next batch, which starts as soon as the
+ * current one is done, so a user's clicks are never reordered.
+ * <p>
+ * A request waits for its batch at most {@code timeout-ms}; when the wait runs out the request
+ * fails, although the click may still be applied by the batch later. Clicks that can no longer be
+ * scheduled because the application is stopping fail straight away, and {@link #shutdown()}
+ * fails whatever is still queued once the running batches had a chance to finish.
+ */
+@Component
+public class CartWriteCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteCoalescer.class);
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CurrentUserContext currentUser;
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long timeoutMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Long, UserQueue> queues = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public CartWriteCoalescer(@Value("${project.cart.coalesce.enabled:true}") boolean enabled,
+                              @Value("${project.cart.coalesce.window-ms:25}") long windowMillis,
+                              @Value("${project.cart.coalesce.timeout-ms:10000}") long timeoutMillis,
+                              @Value("${project.cart.coalesce.threads:4}") int threads) {
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cart-coalescer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Changes the quantity of a line of the logged-in user's cart, waiting for the batch the
+     * change is merged into.
+     *
+     * @param productId the product of the line
+     * @param delta     the change of the quantity, +1 or -1
+     * @return the cart after the batch
+     * @throws APIException if the batch did not complete within the timeout or cannot run
+     */
+    public CartDTO updateProductQuantity(Long productId, int delta) {
+        if (!enabled) {
+            return cartService.updateProductQuantityInCart(productId, delta);
+        }
+        Long userId = currentUser.userId();
+        PendingChange change = new PendingChange(new CartService.QuantityChange(productId, delta));
+        requests.increment();
+        queues.compute(userId, (id, queue) -> {
+            UserQueue userQueue = queue == null ? new UserQueue() : queue;
+            userQueue.pending.add(change);
+            if (!userQueue.scheduled && !userQueue.writing) {
+                userQueue.scheduled = true;
+                try {
+                    scheduler.schedule(() -> flush(userId), windowMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    failPending(userQueue);
+                    return null;
+                }
+            }
+            return userQueue;
+        });
+        try {
+            return change.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Updating the cart failed", e.getCause());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new APIException("The cart is taking too long to update, please reload it and try again");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Interrupted while waiting for the cart");
+        }
+    }
+
+    private void flush(Long userId) {
+        List<PendingChange> batch = new ArrayList<>();
+        queues.computeIfPresent(userId, (id, queue) -> {
+            batch.addAll(queue.pending);
+            queue.pending.clear();
+            queue.scheduled = false;
+            queue.writing = true;
+            return queue;
+        });
+        try {
+            List<CartService.QuantityChange> changes = batch.stream().map(PendingChange::change).toList();
+            CartService.QuantityChangeResult result = cartService.applyQuantityChanges(userId, changes);
+            for (int i = 0; i < batch.size(); i++) {
+                RuntimeException failure = result.failures().get(i);
+                if (failure != null) {
+                    batch.get(i).result.completeExceptionally(failure);
+                } else {
+                    batch.get(i).result.complete(result.cart());
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            if (!(e instanceof RuntimeException)) {
+                logger.error("Writing the cart batch of user {} failed", userId, e);
+            }
+            batch.forEach(change -> change.result.completeExceptionally(e));
+        } finally {
+            batches.increment();
+            queues.computeIfPresent(userId, (id, queue) -> {
+                queue.writing = false;
+                if (queue.pending.isEmpty()) {
+                    return null;
+                }
+                // These clicks already waited while the previous batch was written
+                queue.scheduled = true;
+                try {
+                    scheduler.execute(() -> flush(userId));
+                } catch (RejectedExecutionException e) {
+                    failPending(queue);
+                    return null;
+                }
+                return queue;
+            });
+        }
+    }
+
+    // Called inside queues.compute... when the queue cannot be flushed any more; the caller
+    // removes the queue
+    private static void failPending(UserQueue queue) {
+        APIException failure = new APIException("The cart cannot be updated right now, please try again");
+        queue.pending.forEach(change -> change.result.completeExceptionally(failure));
+        queue.pending.clear();
+    }
+
+    /**
+     * @return the number of clicks received, the number of batches written, and their ratio
+     */
+    public Map<String, Object> stats() {
+        long requestCount = requests.sum();
+        long batchCount = batches.sum();
+        return Map.of("enabled", enabled, "windowMillis", windowMillis, "requests", requestCount,
+                "batches", batchCount, "requestsPerBatch", batchCount == 0 ? 0.0 : (double) requestCount / batchCount,
+                "timeouts", timeouts.sum());
+    }
+
+    /**
+     * Stops accepting batches, lets the scheduled ones run for up to the timeout, then fails
+     * every click still queued so no request is left waiting.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        for (Long userId : queues.keySet()) {
+            queues.computeIfPresent(userId, (id, queue) -> {
+                failPending(queue);
+                return queue.writing ? queue : null;
+            });
+        }
+    }
+
+    private record PendingChange(CartService.QuantityChange change, CompletableFuture<CartDTO> result) {
+        private PendingChange(CartService.QuantityChange change) {
+            this(change, new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * Clicks of one user waiting for the next batch. Only accessed inside {@code queues.compute...}.
+     */
+    private static final class UserQueue {
+        private final List<PendingChange> pending = new ArrayList<>();
+        private boolean scheduled;
+        private boolean writing;
+    }
+}
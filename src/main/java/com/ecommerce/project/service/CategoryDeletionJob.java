@@ -0,0 +1,61 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.response.CategoryDeletionResponse;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one category deletion. Updated by the thread running the deletion and read
+ * concurrently by status requests.
+ */
+final class CategoryDeletionJob {
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final Long categoryId;
+    private final long productsTotal;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong productsDeleted = new AtomicLong();
+    private final AtomicLong cartsUpdated = new AtomicLong();
+    private volatile CategoryDeletionResponse.Status status = CategoryDeletionResponse.Status.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String message;
+
+    CategoryDeletionJob(Long categoryId, long productsTotal) {
+        this.categoryId = categoryId;
+        this.productsTotal = productsTotal;
+    }
+
+    String jobId() {
+        return jobId;
+    }
+
+    Long categoryId() {
+        return categoryId;
+    }
+
+    void chunkDeleted(int products, int carts) {
+        productsDeleted.addAndGet(products);
+        cartsUpdated.addAndGet(carts);
+    }
+
+    void completed() {
+        finish(CategoryDeletionResponse.Status.COMPLETED, null);
+    }
+
+    void failed(String message) {
+        finish(CategoryDeletionResponse.Status.FAILED, message);
+    }
+
+    private void finish(CategoryDeletionResponse.Status status, String message) {
+        this.message = message;
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    CategoryDeletionResponse toResponse() {
+        return new CategoryDeletionResponse(jobId, categoryId, status, productsTotal, productsDeleted.get(),
+                cartsUpdated.get(), startedAt, finishedAt, message);
+    }
+}
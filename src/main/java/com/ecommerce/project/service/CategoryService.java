@@ -1,14 +1,22 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.DTO.CategoryDTO;
+import com.ecommerce.project.payload.response.CategoryDeletionResponse;
 import com.ecommerce.project.payload.response.CategoryResponse;
+import com.ecommerce.project.payload.response.CursorResponse;
 
 public interface CategoryService {
     CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    CursorResponse<CategoryDTO> scrollCategories(String cursor, Integer pageSize, String sortBy, String sortOrder);
+
     CategoryDTO createCategory(CategoryDTO categoryDTO);
 
     CategoryDTO deleteCategory(Long categoryId);
 
+    CategoryDeletionResponse startCategoryDeletion(Long categoryId);
+
+    CategoryDeletionResponse getCategoryDeletion(String jobId);
+
     CategoryDTO updateCategory(CategoryDTO categoryDTO, Long categoryId);
 }
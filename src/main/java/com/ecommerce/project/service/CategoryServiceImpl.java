@@ -1,41 +1,100 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.catalog.CatalogSnapshotService;
+import com.ecommerce.project.constants.AppConstants;
+import com.ecommerce.project.event.CategoryChangedEvent;
+import com.ecommerce.project.event.ProductChangedEvent;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.CategoryMapper;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.payload.DTO.CategoryDTO;
+import com.ecommerce.project.payload.response.CategoryDeletionResponse;
 import com.ecommerce.project.payload.response.CategoryResponse;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.repositories.CategoryRepository;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.BoundedTtlCache;
+import com.ecommerce.project.util.KeysetCursor;
+import com.ecommerce.project.util.PagingUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
+    private static final Logger logger = LoggerFactory.getLogger(CategoryServiceImpl.class);
+
     @Autowired
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+
+    /**
+     * Deletions in progress by category id, so a category is never deleted twice at once.
+     */
+    private final ConcurrentMap<Long, CategoryDeletionJob> runningDeletions = new ConcurrentHashMap<>();
+
+    /**
+     * Background deletions by job id, kept for a day so their outcome can still be read.
+     */
+    private final BoundedTtlCache<String, CategoryDeletionJob> deletionJobs = new BoundedTtlCache<>(100, 24 * 60 * 60 * 1000L);
 
     @Override
     public CategoryResponse getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
+        PagingUtil.pageNumber(pageNumber);
+        CategoryResponse snapshotResponse = catalogSnapshotService.getCategories(pageNumber, PagingUtil.cappedPageSize(pageSize), sortBy, sortOrder);
+        if(snapshotResponse != null){
+            if(snapshotResponse.getResponseObject().isEmpty()){
+                throw new APIException("No categories found!");
+            }
+            return snapshotResponse;
+        }
+        Sort sortByAndOrder = PagingUtil.sort(sortBy, sortOrder);
+        Pageable pageDetails = PageRequest.of(pageNumber, PagingUtil.cappedPageSize(pageSize), sortByAndOrder);
         Page<Category> categoryPage = categoryRepository.findAll(pageDetails);
         List<Category> categories = categoryPage.getContent();
         if(categories.isEmpty()){
             throw new APIException("No categories found!");
         }
-        List<CategoryDTO> categoryDTOS = categories.stream().map(category -> modelMapper.map(category, CategoryDTO.class))
+        List<CategoryDTO> categoryDTOS = categories.stream().map(categoryMapper::toDTO)
                 .toList();
         CategoryResponse categoryResponse = new CategoryResponse();
         categoryResponse.setResponseObject(categoryDTOS);
@@ -47,30 +106,132 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryResponse;
     }
 
+    @Override
+    public CursorResponse<CategoryDTO> scrollCategories(String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        int limit = PagingUtil.cappedPageSize(pageSize);
+        ScrollPosition position = KeysetCursor.decode(cursor, Category.class, sortBy);
+        Window<Category> categoryWindow = categoryRepository.findAllBy(position, PagingUtil.sort(sortBy, sortOrder), Limit.of(limit));
+        if(categoryWindow.isEmpty() && position.isInitial()){
+            throw new APIException("No categories found!");
+        }
+        List<CategoryDTO> categoryDTOS = categoryWindow.getContent().stream().map(categoryMapper::toDTO)
+                .toList();
+        String nextCursor = categoryWindow.hasNext() ? KeysetCursor.encode(categoryWindow.positionAt(categoryWindow.size() - 1)) : null;
+        return new CursorResponse<>(categoryDTOS, limit, nextCursor, !categoryWindow.hasNext());
+    }
+
     @Override
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         Category categoryName = categoryRepository.findByCategoryName(category.getCategoryName());
         if(categoryName != null){
             throw new APIException(category.getCategoryName() + " category already exists!");
         }
         Category savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        CategoryDTO savedCategoryDTO = categoryMapper.toDTO(savedCategory);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Type.CREATED,
+                savedCategory.getCategoryId(), savedCategoryDTO, List.of()));
+        return savedCategoryDTO;
     }
 
     @Override
     public CategoryDTO updateCategory(CategoryDTO categoryDTO, Long categoryId) {
         Category savedCategory = categoryRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
-        Category category = modelMapper.map(categoryDTO,Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         category.setCategoryId(categoryId);
         savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        CategoryDTO savedCategoryDTO = categoryMapper.toDTO(savedCategory);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Type.UPDATED,
+                categoryId, savedCategoryDTO, List.of()));
+        return savedCategoryDTO;
     }
 
     @Override
     public CategoryDTO deleteCategory(Long categoryId){
         Category categoryDetails = categoryRepository.findById(categoryId).orElseThrow(()-> new ResourceNotFoundException("Category", "categoryId", categoryId));
-        categoryRepository.delete(categoryDetails);
-        return modelMapper.map(categoryDetails, CategoryDTO.class);
+        CategoryDeletionJob job = registerDeletion(categoryId);
+        runDeletion(job);
+        CategoryDeletionResponse deletion = job.toResponse();
+        if(deletion.getStatus() == CategoryDeletionResponse.Status.FAILED){
+            throw new APIException("Deleting category " + categoryId + " failed: " + deletion.getMessage());
+        }
+        return categoryMapper.toDTO(categoryDetails);
+    }
+
+    @Override
+    public CategoryDeletionResponse startCategoryDeletion(Long categoryId){
+        if(!categoryRepository.existsById(categoryId)){
+            throw new ResourceNotFoundException("Category", "categoryId", categoryId);
+        }
+        CategoryDeletionJob job = registerDeletion(categoryId);
+        deletionJobs.put(job.jobId(), job);
+        try {
+            taskExecutor.execute(() -> runDeletion(job));
+        } catch (RuntimeException e) {
+            runningDeletions.remove(categoryId, job);
+            job.failed(e.getMessage());
+            throw e;
+        }
+        return job.toResponse();
+    }
+
+    @Override
+    public CategoryDeletionResponse getCategoryDeletion(String jobId){
+        CategoryDeletionJob job = deletionJobs.get(jobId);
+        if(job == null){
+            throw new ResourceNotFoundException("Category deletion", "jobId", jobId);
+        }
+        return job.toResponse();
+    }
+
+    private CategoryDeletionJob registerDeletion(Long categoryId) {
+        CategoryDeletionJob job = new CategoryDeletionJob(categoryId, productRepository.countByCategoryCategoryId(categoryId));
+        if(runningDeletions.putIfAbsent(categoryId, job) != null){
+            throw new APIException("Category " + categoryId + " is already being deleted!");
+        }
+        return job;
+    }
+
+    /**
+     * Deletes the products of the category in chunks of {@link AppConstants#DELETE_CHUNK_SIZE},
+     * each in its own short transaction made of a few set-based statements, then the category
+     * itself. Rows are never loaded as entities, so the cascades of Category and Product are
+     * bypassed. If a chunk fails, the chunks already committed stay deleted and the category is
+     * kept, so the deletion can simply be started again.
+     */
+    private void runDeletion(CategoryDeletionJob job) {
+        Long categoryId = job.categoryId();
+        List<Long> deletedProductIds = new ArrayList<>();
+        try {
+            List<Long> productIds;
+            do {
+                int[] carts = new int[1];
+                productIds = transactionTemplate.execute(status -> {
+                    List<Long> chunk = productRepository.findProductIdsByCategoryId(categoryId,
+                            PageRequest.of(0, AppConstants.DELETE_CHUNK_SIZE));
+                    if (!chunk.isEmpty()) {
+                        carts[0] = cartService.removeProductsFromCarts(chunk);
+                        productRepository.deleteProductsByProductIdIn(chunk);
+                    }
+                    return chunk;
+                });
+                deletedProductIds.addAll(productIds);
+                job.chunkDeleted(productIds.size(), carts[0]);
+            } while (productIds.size() == AppConstants.DELETE_CHUNK_SIZE);
+
+            transactionTemplate.executeWithoutResult(status -> categoryRepository.deleteCategoryById(categoryId));
+            eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Type.DELETED,
+                    categoryId, null, deletedProductIds));
+            job.completed();
+            logger.info("Category {} deleted with {} products", categoryId, deletedProductIds.size());
+        } catch (RuntimeException e) {
+            // Let the catalog caches and the search index drop what was already deleted
+            deletedProductIds.forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(
+                    ProductChangedEvent.Type.DELETED, productId, categoryId, null)));
+            job.failed(e.getMessage());
+            logger.error("Deleting category {} failed after {} products", categoryId, deletedProductIds.size(), e);
+        } finally {
+            runningDeletions.remove(categoryId, job);
+        }
     }
 }
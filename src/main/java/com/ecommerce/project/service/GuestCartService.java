@@ -0,0 +1,15 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.DTO.CartDTO;
+
+import java.util.Map;
+
+public interface GuestCartService {
+    CartDTO getCart(Map<Long, Integer> lines);
+
+    Map<Long, Integer> addProductToCart(Map<Long, Integer> lines, Long productId, Integer quantity);
+
+    Map<Long, Integer> updateProductQuantityInCart(Map<Long, Integer> lines, Long productId, Integer quantity);
+
+    Map<Long, Integer> deleteProductFromCart(Map<Long, Integer> lines, Long productId);
+}
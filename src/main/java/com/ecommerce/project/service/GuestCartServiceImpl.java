@@ -0,0 +1,121 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.constants.AppConstants;
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.payload.DTO.CartDTO;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Carts of anonymous visitors. The lines live only in a signed cookie, so these methods take
+ * the current lines and return the new ones without writing anything; stock is checked but
+ * not reserved until the cart is merged into the user's cart at sign-in.
+ */
+@Service
+public class GuestCartServiceImpl implements GuestCartService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Override
+    public CartDTO getCart(Map<Long, Integer> lines) {
+        CartDTO cartDTO = new CartDTO();
+        if (lines.isEmpty()) {
+            return cartDTO;
+        }
+        Map<Long, ProductDTO> productsById = productRepository.findProductDTOsByProductIdIn(lines.keySet()).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+        List<ProductDTO> productDTOS = new ArrayList<>(lines.size());
+        double totalPrice = 0.0;
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            // Products deleted since they were added are skipped
+            ProductDTO productDTO = productsById.get(line.getKey());
+            if (productDTO != null) {
+                productDTO.setQuantity(line.getValue());
+                totalPrice += productDTO.getNetPrice() * line.getValue();
+                productDTOS.add(productDTO);
+            }
+        }
+        cartDTO.setProductDTOS(productDTOS);
+        cartDTO.setTotalPrice(totalPrice);
+        return cartDTO;
+    }
+
+    @Override
+    public Map<Long, Integer> addProductToCart(Map<Long, Integer> lines, Long productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new APIException("The quantity must be positive");
+        }
+        ProductDTO product = findProduct(productId);
+        if (lines.containsKey(productId)) {
+            throw new APIException("Product " + product.getProductName() + " already exists in the cart");
+        }
+        if (lines.size() >= AppConstants.MAX_GUEST_CART_LINES) {
+            throw new APIException("A guest cart can hold at most " + AppConstants.MAX_GUEST_CART_LINES
+                    + " products, please sign in to add more!");
+        }
+        checkStock(product, quantity);
+        Map<Long, Integer> updated = new LinkedHashMap<>(lines);
+        updated.put(productId, quantity);
+        return updated;
+    }
+
+    @Override
+    public Map<Long, Integer> updateProductQuantityInCart(Map<Long, Integer> lines, Long productId, Integer quantity) {
+        ProductDTO product = findProduct(productId);
+        Integer current = lines.get(productId);
+        if (current == null) {
+            throw new APIException("Product " + product.getProductName() + " not available in the cart!!!");
+        }
+        int newQuantity = current + quantity;
+        if (newQuantity < 0) {
+            throw new APIException("The resulting quantity cannot be negative");
+        }
+        if (quantity > 0) {
+            checkStock(product, newQuantity);
+        }
+        Map<Long, Integer> updated = new LinkedHashMap<>(lines);
+        if (newQuantity == 0) {
+            updated.remove(productId);
+        } else {
+            updated.put(productId, newQuantity);
+        }
+        return updated;
+    }
+
+    @Override
+    public Map<Long, Integer> deleteProductFromCart(Map<Long, Integer> lines, Long productId) {
+        if (!lines.containsKey(productId)) {
+            throw new ResourceNotFoundException("Product", "productId", productId);
+        }
+        Map<Long, Integer> updated = new LinkedHashMap<>(lines);
+        updated.remove(productId);
+        return updated;
+    }
+
+    private ProductDTO findProduct(Long productId) {
+        return productRepository.findProductDTOsByProductIdIn(List.of(productId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
+    }
+
+    private static void checkStock(ProductDTO product, int quantity) {
+        if (product.getQuantity() == 0) {
+            throw new APIException(product.getProductName() + " is not available");
+        }
+        if (product.getQuantity() < quantity) {
+            throw new APIException("Please, make an order of the " + product.getProductName()
+                    + " less than or equal to the quantity " + product.getQuantity() + ".");
+        }
+    }
+}
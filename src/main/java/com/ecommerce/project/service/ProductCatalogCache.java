@@ -0,0 +1,223 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.event.CatalogReloadedEvent;
+import com.ecommerce.project.event.CategoryChangedEvent;
+import com.ecommerce.project.event.ProductChangedEvent;
+import com.ecommerce.project.event.ProductsImportedEvent;
+import com.ecommerce.project.event.StockChangedEvent;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.payload.response.ProductResponse;
+import com.ecommerce.project.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for catalog listing pages.
+ * <p>
+ * Pages of the public product listing and of the per-category listing are cached by their
+ * paging and sorting parameters. Product writes invalidate only the pages they can affect:
+ * the global listing plus the pages of the product's category, or just the pages that contain
+ * the product when the change cannot reorder the listing. Stock reservations and releases change
+ * the quantity shown in the listings, so they invalidate the pages holding the product too.
+ * <p>
+ * Concurrent misses on the same page share one load. Every invalidation bumps a generation
+ * counter, and a load is only cached if the generation did not move while it ran, so a load that
+ * overlapped a committed write cannot put the old page back.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final BoundedTtlCache<CatalogPageKey, ProductResponse> pages;
+    private final Map<CatalogPageKey, CompletableFuture<ProductResponse>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCatalogCache(@Value("${project.cache.products.max-size:1000}") int maxSize,
+                               @Value("${project.cache.products.ttl-seconds:300}") long ttlSeconds) {
+        this.pages = new BoundedTtlCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * Returns the cached page for the key, loading and caching it on a miss.
+     *
+     * @param key    the page key
+     * @param loader loads the page from the database
+     * @return the cached or freshly loaded page
+     */
+    public ProductResponse getOrLoad(CatalogPageKey key, Supplier<ProductResponse> loader) {
+        ProductResponse cached = pages.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<ProductResponse> load = new CompletableFuture<>();
+        CompletableFuture<ProductResponse> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            long loadGeneration = generation.get();
+            ProductResponse loaded = loader.get();
+            synchronized (this) {
+                if (generation.get() == loadGeneration) {
+                    pages.put(key, loaded);
+                }
+            }
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    /**
+     * Invalidates the pages a product change can affect. Image changes cannot reorder a listing,
+     * so they only drop the pages containing the product.
+     *
+     * @param event the product change
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.IMAGE_UPDATED) {
+            invalidateProduct(event.productId());
+        } else {
+            invalidateCategory(event.categoryId());
+        }
+    }
+
+    /**
+     * Invalidates the pages a bulk import can affect.
+     *
+     * @param event the import
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        invalidateCategory(event.categoryId());
+    }
+
+    /**
+     * Invalidates the pages of a deleted category.
+     *
+     * @param event the category change
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() == CategoryChangedEvent.Type.DELETED) {
+            invalidateCategory(event.categoryId());
+        }
+    }
+
+    /**
+     * Invalidates the pages a stock reservation or release can affect: the pages containing the
+     * product, and the listings sorted by quantity that it can reorder.
+     *
+     * @param event the stock change
+     */
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        invalidateStock(event.productId(), event.categoryId());
+    }
+
+    /**
+     * Drops every page after the catalog snapshot picked up writes made outside this process.
+     *
+     * @param event the reload
+     */
+    @EventListener
+    public void onCatalogReloaded(CatalogReloadedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Drops the global listing pages and every page of the given category.
+     * Used when a product is added, removed, or changed in a way that can reorder listings.
+     *
+     * @param categoryId the category of the changed product
+     */
+    public synchronized void invalidateCategory(Long categoryId) {
+        invalidated();
+        pages.invalidateIf((key, page) -> key.categoryId() == null || Objects.equals(key.categoryId(), categoryId));
+    }
+
+    /**
+     * Drops only the pages that currently contain the given product.
+     *
+     * @param productId the changed product
+     */
+    public synchronized void invalidateProduct(Long productId) {
+        invalidated();
+        pages.invalidateIf((key, page) -> containsProduct(page, productId));
+    }
+
+    /**
+     * Drops the pages that contain the product and the pages sorted by quantity that the
+     * product can appear in.
+     *
+     * @param productId  the product whose stock changed
+     * @param categoryId the category of the product
+     */
+    public synchronized void invalidateStock(Long productId, Long categoryId) {
+        invalidated();
+        pages.invalidateIf((key, page) -> containsProduct(page, productId)
+                || "quantity".equals(key.sortBy())
+                && (key.categoryId() == null || Objects.equals(key.categoryId(), categoryId)));
+    }
+
+    public synchronized void invalidateAll() {
+        invalidated();
+        pages.invalidateAll();
+    }
+
+    // Loads running now may have read the old state: keep them from being cached or joined
+    private void invalidated() {
+        generation.incrementAndGet();
+        loading.clear();
+    }
+
+    public BoundedTtlCache.CacheStats stats() {
+        return pages.stats();
+    }
+
+    private static boolean containsProduct(ProductResponse page, Long productId) {
+        for (ProductDTO productDTO : page.getResponseObject()) {
+            if (Objects.equals(productDTO.getProductId(), productId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Identifies one cached listing page. {@code categoryId} is null for the global product listing.
+     */
+    public record CatalogPageKey(Long categoryId, int pageNumber, int pageSize, String sortBy, String sortOrder) {
+
+        public static CatalogPageKey of(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+            String order = sortOrder.equalsIgnoreCase("asc") ? "asc" : "desc";
+            return new CatalogPageKey(categoryId, pageNumber, pageSize, sortBy, order);
+        }
+    }
+}
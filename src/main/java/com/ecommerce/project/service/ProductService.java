@@ -1,22 +1,36 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.payload.response.BulkImportResponse;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.payload.response.ProductResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 
 public interface ProductService {
     ProductDTO createProduct(Long categoryId, ProductDTO productDTO);
 
+    BulkImportResponse importProducts(Long categoryId, List<ProductDTO> productDTOs);
+
     ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    CursorResponse<ProductDTO> scrollProducts(String cursor, Integer pageSize, String sortBy, String sortOrder);
+
     ProductResponse searchProductByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
     ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    CursorResponse<ProductDTO> scrollProductsByKeyword(String keyword, String cursor, Integer pageSize);
+
+    long exportProducts(OutputStream outputStream) throws IOException;
+
     ProductDTO updateProduct(Long productId, ProductDTO product);
 
+    ProductDTO adjustStock(Long productId, Integer quantity);
+
     ProductDTO deleteProduct(Long productId);
 
     ProductDTO updateProductImage(Long productId, MultipartFile file) throws IOException;
@@ -1,31 +1,66 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.catalog.CatalogSnapshotService;
+import com.ecommerce.project.constants.AppConstants;
+import com.ecommerce.project.event.ProductChangedEvent;
+import com.ecommerce.project.event.ProductsImportedEvent;
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
-import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.mapper.ProductMapper;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
-import com.ecommerce.project.payload.DTO.CartDTO;
 import com.ecommerce.project.payload.DTO.ProductDTO;
+import com.ecommerce.project.payload.response.BulkImportResponse;
+import com.ecommerce.project.payload.response.BulkImportRowResult;
+import com.ecommerce.project.payload.response.CursorResponse;
 import com.ecommerce.project.payload.response.ProductResponse;
-import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.CategoryRepository;
 import com.ecommerce.project.repositories.ProductRepository;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.search.ProductSearchHits;
+import com.ecommerce.project.search.ProductSearchEngine;
+import com.ecommerce.project.util.KeysetCursor;
+import com.ecommerce.project.util.NdjsonWriter;
+import com.ecommerce.project.util.PagingUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductServiceImpl implements ProductService{
+    private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -36,13 +71,37 @@ public class ProductServiceImpl implements ProductService{
     private FileService fileService;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
 
     @Autowired
-    private CartRepository cartRepository;
+    private CartService cartService;
 
     @Autowired
-    private CartService cartService;
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductSearchEngine productSearchEngine;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Value("${project.image}")
     private String path;
@@ -51,98 +110,273 @@ public class ProductServiceImpl implements ProductService{
     public ProductDTO createProduct(Long categoryId, ProductDTO productDTO) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "CategoryId", categoryId));
-        boolean isProductNotPresent = true;
-        List<Product> listOfProducts = category.getProducts();
-        for (Product listOfProduct : listOfProducts) {
-            if (listOfProduct.getProductName().equals(productDTO.getProductName())) {
-                isProductNotPresent = false;
-                break;
-            }
-        }
+        boolean isProductNotPresent = !productRepository.existsByCategoryCategoryIdAndProductName(categoryId, productDTO.getProductName());
 
         if(isProductNotPresent){
-            Product product = modelMapper.map(productDTO, Product.class);
+            Product product = productMapper.toEntity(productDTO);
             product.setCategory(category);
             product.setImage("default.png");
             double netPrice = product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice();
             product.setNetPrice(netPrice);
             Product savedProduct = productRepository.save(product);
-            return modelMapper.map(savedProduct, ProductDTO.class);
+            ProductDTO savedProductDTO = productMapper.toDTO(savedProduct);
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,
+                    savedProduct.getProductId(), categoryId, savedProductDTO));
+            return savedProductDTO;
         }else{
             throw new APIException("Product already exist!");
         }
 
     }
 
+    /**
+     * Creates many products in one call. Rows are validated up front, duplicates (against the
+     * category and within the request) are found with one IN query per chunk of names, and the
+     * accepted rows are inserted in JDBC batches, one transaction per chunk. A failing chunk does
+     * not undo the chunks already committed; its rows are reported as FAILED.
+     */
+    @Override
+    public BulkImportResponse importProducts(Long categoryId, List<ProductDTO> productDTOs) {
+        if(productDTOs == null || productDTOs.isEmpty()){
+            throw new APIException("No products to import!");
+        }
+        if(productDTOs.size() > AppConstants.MAX_IMPORT_SIZE){
+            throw new APIException("At most " + AppConstants.MAX_IMPORT_SIZE + " products can be imported per request!");
+        }
+        if(!categoryRepository.existsById(categoryId)){
+            throw new ResourceNotFoundException("Category", "CategoryId", categoryId);
+        }
+
+        BulkImportRowResult[] results = new BulkImportRowResult[productDTOs.size()];
+        Set<String> existingNames = findExistingProductNames(categoryId, productDTOs);
+        Set<String> requestNames = new HashSet<>();
+        List<Integer> acceptedRows = new ArrayList<>();
+        List<Product> acceptedProducts = new ArrayList<>();
+        for (int i = 0; i < productDTOs.size(); i++) {
+            ProductDTO productDTO = productDTOs.get(i);
+            if(productDTO == null){
+                results[i] = new BulkImportRowResult(i, null, BulkImportRowResult.Status.INVALID, null, "Product is required!");
+                continue;
+            }
+            Product product = productMapper.toEntity(productDTO);
+            product.setProductId(null);
+            product.setImage("default.png");
+            product.setNetPrice(product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice());
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if(!violations.isEmpty()){
+                String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(" "));
+                results[i] = new BulkImportRowResult(i, product.getProductName(), BulkImportRowResult.Status.INVALID, null, message);
+            }else if(existingNames.contains(product.getProductName()) || !requestNames.add(product.getProductName())){
+                results[i] = new BulkImportRowResult(i, product.getProductName(), BulkImportRowResult.Status.DUPLICATE, null, "Product already exist!");
+            }else{
+                acceptedRows.add(i);
+                acceptedProducts.add(product);
+            }
+        }
+
+        List<ProductDTO> createdProducts = new ArrayList<>(acceptedProducts.size());
+        for (int from = 0; from < acceptedProducts.size(); from += AppConstants.IMPORT_CHUNK_SIZE) {
+            int to = Math.min(from + AppConstants.IMPORT_CHUNK_SIZE, acceptedProducts.size());
+            List<Product> chunk = acceptedProducts.subList(from, to);
+            try {
+                List<ProductDTO> saved = transactionTemplate.execute(status -> insertProducts(categoryId, chunk));
+                for (int j = 0; j < saved.size(); j++) {
+                    ProductDTO savedProductDTO = saved.get(j);
+                    int row = acceptedRows.get(from + j);
+                    results[row] = new BulkImportRowResult(row, savedProductDTO.getProductName(),
+                            BulkImportRowResult.Status.CREATED, savedProductDTO.getProductId(), null);
+                }
+                createdProducts.addAll(saved);
+            } catch (DataAccessException | TransactionException e) {
+                for (int j = from; j < to; j++) {
+                    int row = acceptedRows.get(j);
+                    results[row] = new BulkImportRowResult(row, acceptedProducts.get(j).getProductName(),
+                            BulkImportRowResult.Status.FAILED, null, "Product could not be saved!");
+                }
+            }
+        }
+        if(!createdProducts.isEmpty()){
+            eventPublisher.publishEvent(new ProductsImportedEvent(categoryId, createdProducts));
+        }
+        return new BulkImportResponse(productDTOs.size(), createdProducts.size(),
+                productDTOs.size() - createdProducts.size(), Arrays.asList(results));
+    }
+
+    private Set<String> findExistingProductNames(Long categoryId, List<ProductDTO> productDTOs) {
+        List<String> names = productDTOs.stream()
+                .filter(Objects::nonNull)
+                .map(ProductDTO::getProductName)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Set<String> existingNames = new HashSet<>();
+        for (int from = 0; from < names.size(); from += AppConstants.IMPORT_CHUNK_SIZE) {
+            List<String> chunk = names.subList(from, Math.min(from + AppConstants.IMPORT_CHUNK_SIZE, names.size()));
+            existingNames.addAll(productRepository.findExistingProductNames(categoryId, chunk));
+        }
+        return existingNames;
+    }
+
+    /**
+     * Inserts one chunk of products. Ids come from the pooled sequence, so Hibernate can send the
+     * inserts as JDBC batches on flush; the persistence context is cleared afterwards so it never
+     * grows beyond one chunk.
+     */
+    private List<ProductDTO> insertProducts(Long categoryId, List<Product> products) {
+        Category category = categoryRepository.getReferenceById(categoryId);
+        products.forEach(product -> product.setCategory(category));
+        List<Product> savedProducts = productRepository.saveAll(products);
+        entityManager.flush();
+        List<ProductDTO> savedProductDTOs = savedProducts.stream().map(productMapper::toDTO).toList();
+        entityManager.clear();
+        return savedProductDTOs;
+    }
+
     @Override
     public ProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> productPage = productRepository.findAll(pageDetails);
-        List<Product> products = productPage.getContent();
-        if(products.isEmpty()){
+        int size = PagingUtil.cappedPageSize(pageSize);
+        ProductCatalogCache.CatalogPageKey key = ProductCatalogCache.CatalogPageKey.of(null, pageNumber, size, sortBy, sortOrder);
+        return productCatalogCache.getOrLoad(key, () -> loadAllProducts(pageNumber, size, sortBy, sortOrder));
+    }
+
+    @Override
+    public CursorResponse<ProductDTO> scrollProducts(String cursor, Integer pageSize, String sortBy, String sortOrder) {
+        int limit = PagingUtil.cappedPageSize(pageSize);
+        ScrollPosition position = KeysetCursor.decode(cursor, Product.class, sortBy);
+        Window<Product> productWindow = productRepository.findAllBy(position, PagingUtil.sort(sortBy, sortOrder), Limit.of(limit));
+        if(productWindow.isEmpty() && position.isInitial()){
             throw new APIException("No products found!");
         }
-        List<ProductDTO> productDTOS = products.stream().map(product -> modelMapper.map(product, ProductDTO.class))
+        List<ProductDTO> productDTOS = productWindow.getContent().stream().map(productMapper::toDTO)
                 .toList();
-        ProductResponse productResponse = new ProductResponse();
-        productResponse.setResponseObject(productDTOS);
-        productResponse.setPageNumber(productPage.getNumber());
-        productResponse.setPageSize(productPage.getSize());
-        productResponse.setTotalElements(productPage.getTotalElements());
-        productResponse.setTotalPages(productPage.getTotalPages());
-        productResponse.setLastPage(productPage.isLast());
-        return productResponse;
+        String nextCursor = productWindow.hasNext() ? KeysetCursor.encode(productWindow.positionAt(productWindow.size() - 1)) : null;
+        return new CursorResponse<>(productDTOS, limit, nextCursor, !productWindow.hasNext());
+    }
+
+    private ProductResponse loadAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        Sort sortByAndOrder = PagingUtil.sort(sortBy, sortOrder);
+        Pageable pageDetails = PageRequest.of(pageNumber, PagingUtil.cappedPageSize(pageSize), sortByAndOrder);
+        Page<ProductDTO> productPage = productRepository.findAllProductDTOs(pageDetails);
+        if(productPage.isEmpty()){
+            throw new APIException("No products found!");
+        }
+        return toProductResponse(productPage);
     }
 
     @Override
     public ProductResponse searchProductByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "CategoryId", categoryId));
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> productPage = productRepository.findByCategoryOrderByPriceAsc(category, pageDetails);
-        List<Product> products = productPage.getContent();
-
-        if(products.isEmpty()){
+        PagingUtil.pageNumber(pageNumber);
+        int size = PagingUtil.cappedPageSize(pageSize);
+        ProductResponse snapshotResponse = catalogSnapshotService.getProductsByCategory(categoryId, pageNumber, size, sortBy, sortOrder);
+        if(snapshotResponse != null){
+            if(snapshotResponse.getResponseObject().isEmpty()){
+                throw new APIException("No products found with the given category!");
+            }
+            return snapshotResponse;
+        }
+        ProductCatalogCache.CatalogPageKey key = ProductCatalogCache.CatalogPageKey.of(categoryId, pageNumber, size, sortBy, sortOrder);
+        return productCatalogCache.getOrLoad(key, () -> loadProductsByCategory(categoryId, pageNumber, size, sortBy, sortOrder));
+    }
+
+    private ProductResponse loadProductsByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        if(!categoryRepository.existsById(categoryId)){
+            throw new ResourceNotFoundException("Category", "CategoryId", categoryId);
+        }
+        Sort sortByAndOrder = PagingUtil.sort(sortBy, sortOrder);
+        Pageable pageDetails = PageRequest.of(pageNumber, PagingUtil.cappedPageSize(pageSize), sortByAndOrder);
+        Page<ProductDTO> productPage = productRepository.findProductDTOsByCategoryId(categoryId, pageDetails);
+
+        if(productPage.isEmpty()){
             throw new APIException("No products found with the given category!");
         }
+        return toProductResponse(productPage);
+    }
 
-        List<ProductDTO> productDTOS = products.stream().map(product -> modelMapper.map(product, ProductDTO.class))
-                .toList();
+    @Override
+    public ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        if(productSearchEngine.isReady()){
+            return searchIndexedProducts(keyword, pageNumber, PagingUtil.cappedPageSize(pageSize));
+        }
+        // Fall back to a LIKE scan until the search engine is ready
+        Sort sortByAndOrder = PagingUtil.sort(sortBy, sortOrder);
+        Pageable pageDetails = PageRequest.of(pageNumber, PagingUtil.cappedPageSize(pageSize), sortByAndOrder);
+        Page<ProductDTO> productPage = productRepository.findProductDTOsByProductNameLikeIgnoreCase('%' + keyword + '%', pageDetails);
+
+        if(productPage.isEmpty()){
+            throw new APIException("No products found with the given keyword!");
+        }
+        return toProductResponse(productPage);
+    }
+
+    /**
+     * Answers a keyword search from the search engine. Results are ranked by relevance, so
+     * sortBy and sortOrder do not apply; the page of ids is resolved with a single IN query.
+     */
+    private ProductResponse searchIndexedProducts(String keyword, Integer pageNumber, Integer pageSize) {
+        ProductSearchHits hits = productSearchEngine.search(keyword, pageNumber, pageSize);
+        if(hits.productIds().length == 0){
+            throw new APIException("No products found with the given keyword!");
+        }
+        List<ProductDTO> productDTOS = findProductDTOsInOrder(hits.productIds());
+        int totalPages = (int) ((hits.totalHits() + pageSize - 1) / pageSize);
         ProductResponse productResponse = new ProductResponse();
         productResponse.setResponseObject(productDTOS);
-        productResponse.setPageNumber(productPage.getNumber());
-        productResponse.setPageSize(productPage.getSize());
-        productResponse.setTotalElements(productPage.getTotalElements());
-        productResponse.setTotalPages(productPage.getTotalPages());
-        productResponse.setLastPage(productPage.isLast());
+        productResponse.setPageNumber(pageNumber);
+        productResponse.setPageSize(pageSize);
+        productResponse.setTotalElements(hits.totalHits());
+        productResponse.setTotalPages(totalPages);
+        productResponse.setLastPage(pageNumber + 1 >= totalPages);
         return productResponse;
     }
 
     @Override
-    public ProductResponse searchProductByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
-        Pageable pageDetails = PageRequest.of(pageNumber, pageSize, sortByAndOrder);
-        Page<Product> productPage = productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%', pageDetails);
-
-        List<Product> products = productPage.getContent();
-        if(products.isEmpty()){
+    public CursorResponse<ProductDTO> scrollProductsByKeyword(String keyword, String cursor, Integer pageSize) {
+        if(!productSearchEngine.isReady()){
+            throw new APIException("Product search is not available yet, please retry shortly!");
+        }
+        int limit = PagingUtil.cappedPageSize(pageSize);
+        ProductSearchHits hits = productSearchEngine.searchAfter(keyword, cursor, limit);
+        if(hits.productIds().length == 0 && (cursor == null || cursor.isBlank())){
             throw new APIException("No products found with the given keyword!");
         }
-        List<ProductDTO> productDTOS = products.stream().map(product -> modelMapper.map(product, ProductDTO.class))
-                .toList();
-        if(products.isEmpty()){
-    throw new APIException("Product not found with the given keyword" + keyword);
+        List<ProductDTO> productDTOS = hits.productIds().length == 0 ? List.of() : findProductDTOsInOrder(hits.productIds());
+        return new CursorResponse<>(productDTOS, limit, hits.nextCursor(), hits.nextCursor() == null);
+    }
+
+    /**
+     * Writes the whole catalog as NDJSON, one product per line in id order. Rows are read from a
+     * fetch-size bounded database cursor and written as they arrive, so heap use stays flat
+     * whatever the size of the catalog.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream outputStream) throws IOException {
+        try (Stream<ProductDTO> products = productRepository.streamAllProductDTOs();
+             NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream, 500)) {
+            for (ProductDTO productDTO : (Iterable<ProductDTO>) products::iterator) {
+                writer.write(productDTO);
+            }
+            return writer.rows();
+        }
+    }
+
+    private List<ProductDTO> findProductDTOsInOrder(long[] productIds) {
+        List<Long> ids = Arrays.stream(productIds).boxed().toList();
+        Map<Long, ProductDTO> productsById = productRepository.findProductDTOsByProductIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+        List<ProductDTO> productDTOS = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductDTO productDTO = productsById.get(id);
+            if (productDTO != null) {
+                productDTOS.add(productDTO);
+            }
         }
+        return productDTOS;
+    }
+
+    private ProductResponse toProductResponse(Page<ProductDTO> productPage) {
         ProductResponse productResponse = new ProductResponse();
-        productResponse.setResponseObject(productDTOS);
+        productResponse.setResponseObject(productPage.getContent());
         productResponse.setPageNumber(productPage.getNumber());
         productResponse.setPageSize(productPage.getSize());
         productResponse.setTotalElements(productPage.getTotalElements());
@@ -151,46 +385,75 @@ public class ProductServiceImpl implements ProductService{
         return productResponse;
     }
 
+    /**
+     * Updates the details and the price of a product. The stock is left as it is: it is
+     * reserved and released by the carts concurrently, so writing back the quantity the admin
+     * read earlier would undo those changes. Stock is changed with {@link #adjustStock} instead.
+     */
+    @Transactional
     @Override
     public ProductDTO updateProduct(Long productId, ProductDTO productDTO) {
         Product productDetail = productRepository.findById(productId)
                 .orElseThrow(()->new ResourceNotFoundException("Product", "productId", productId));
-        Product product = modelMapper.map(productDTO, Product.class);
+        Product product = productMapper.toEntity(productDTO);
+        double netPrice = product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice();
+
+        // Reprice the carts while the product is still unchanged, so the bulk updates do not
+        // flush the product first: cart writes lock the cart row before the product row (when
+        // they reserve stock), and taking them in the same order here keeps a price change
+        // racing an add-to-cart from deadlocking
+        int cartsRepriced = cartService.repriceProductInCarts(productId, netPrice, product.getDiscount());
+        if (cartsRepriced > 0) {
+            logger.info("Product {} repriced in {} carts", productId, cartsRepriced);
+        }
+
         productDetail.setProductName(product.getProductName());
         productDetail.setDescription(product.getDescription());
         productDetail.setDiscount(product.getDiscount());
-        productDetail.setQuantity(product.getQuantity());
         productDetail.setPrice(product.getPrice());
-        double netPrice = product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice();
         productDetail.setNetPrice(netPrice);
 
         Product savedProduct = productRepository.save(productDetail);
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-        List<CartDTO> cartDTOs = carts.stream().map(cart -> {
-            CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-            List<ProductDTO> products = cart.getCartItems().stream()
-                    .map(p -> modelMapper.map(p.getProduct(), ProductDTO.class)).collect(Collectors.toList());
-
-            cartDTO.setProductDTOS(products);
-
-            return cartDTO;
-
-        }).toList();
 
-        cartDTOs.forEach(cart -> cartService.updateProductInCarts(cart.getCartId(), productId));
+        ProductDTO savedProductDTO = productMapper.toDTO(savedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED,
+                productId, savedProduct.getCategory().getCategoryId(), savedProductDTO));
+        return savedProductDTO;
+    }
 
-        return modelMapper.map(savedProduct, ProductDTO.class);
+    /**
+     * Adds delivered units to the stock of a product, or writes units off. The change is applied
+     * relative to the current stock with the same conditional update as a cart reservation, so
+     * it never undoes a concurrent reservation and never takes the stock below zero.
+     */
+    @Transactional
+    @Override
+    public ProductDTO adjustStock(Long productId, Integer quantity) {
+        if (quantity == null || quantity == 0) {
+            throw new APIException("The stock change must not be zero");
+        }
+        if (stockReservationService.adjust(productId, quantity).isEmpty()) {
+            if (!productRepository.existsById(productId)) {
+                throw new ResourceNotFoundException("Product", "productId", productId);
+            }
+            throw new APIException("Cannot write off " + -quantity + " units, only "
+                    + stockReservationService.available(productId) + " are in stock");
+        }
+        return productRepository.findProductDTOsByProductIdIn(List.of(productId)).get(0);
     }
 
+    @Transactional
     @Override
     public ProductDTO deleteProduct(Long productId) {
-        Product productDetails = productRepository.findById(productId).orElseThrow(()-> new ResourceNotFoundException("Product", "productId", productId));
-        // DELETE
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-        carts.forEach(cart -> cartService.deleteProductFromCart(cart.getCartId(), productId));
-        productRepository.delete(productDetails);
-        return modelMapper.map(productDetails, ProductDTO.class);
+        ProductDTO productDTO = productRepository.findProductDTOsByProductIdIn(List.of(productId)).stream()
+                .findFirst()
+                .orElseThrow(()-> new ResourceNotFoundException("Product", "productId", productId));
+        Long categoryId = productRepository.findCategoryIdByProductId(productId).orElse(null);
+        cartService.removeProductsFromCarts(List.of(productId));
+        productRepository.deleteProductsByProductIdIn(List.of(productId));
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED,
+                productId, categoryId, null));
+        return productDTO;
     }
 
     @Override
@@ -201,7 +464,10 @@ public class ProductServiceImpl implements ProductService{
         String fileName = fileService.uploadImage(path, file);
         productFromDb.setImage(fileName);
         Product updatedProduct = productRepository.save(productFromDb);
-        return modelMapper.map(updatedProduct, ProductDTO.class);
+        ProductDTO updatedProductDTO = productMapper.toDTO(updatedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.IMAGE_UPDATED,
+                productId, updatedProduct.getCategory().getCategoryId(), updatedProductDTO));
+        return updatedProductDTO;
     }
 
 }
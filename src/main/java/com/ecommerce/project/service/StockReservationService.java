@@ -0,0 +1,189 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.event.StockChangedEvent;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.projection.StockLevelView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reserves product stock for cart lines.
+ * <p>
+ * Taking stock is a single conditional {@code UPDATE ... WHERE quantity >= ? RETURNING}, so there
+ * is no read-compare-write window to oversell through. Stock goes back with a relative update
+ * when a line shrinks or leaves the cart. Both run in the caller's transaction, so a rollback
+ * gives the stock back too; it also means the product row stays locked until that transaction
+ * commits or rolls back, and every other reservation of the product waits for it. Callers should
+ * therefore reserve late and keep the rest of the transaction short. Each change publishes a
+ * {@link StockChangedEvent}, which the catalog listeners apply once the transaction has committed.
+ * <p>
+ * The quantity of a product is therefore the stock not held by any cart. Admins change it only
+ * relatively, through {@link #adjust(Long, int)}. Stock stays reserved for as long as the line
+ * is in the cart: carts do not expire, so the units held by an abandoned cart only return when
+ * the line is removed, the product is deleted, or an admin writes the stock up again.
+ * <p>
+ * Every reservation is timed. On a hot product the time is mostly spent waiting for the row lock,
+ * so the per-product totals show which products are contended.
+ */
+@Component
+public class StockReservationService {
+
+    private static final int MAX_TRACKED_PRODUCTS = 10_000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    private final Counters untracked = new Counters();
+
+    /**
+     * Takes stock of a product.
+     *
+     * @param productId the product
+     * @param quantity  the number of units to take, positive
+     * @return true if the product had enough stock and it was taken
+     */
+    public boolean reserve(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        long start = System.nanoTime();
+        List<StockLevelView> stock = productRepository.reserveStock(productId, quantity);
+        long waitNanos = System.nanoTime() - start;
+        boolean reserved = !stock.isEmpty();
+        if (reserved) {
+            publish(productId, stock.get(0));
+        }
+
+        Counters productCounters = counters(productId);
+        (reserved ? productCounters.reservations : productCounters.rejections).increment();
+        productCounters.waitNanos.add(waitNanos);
+        productCounters.maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        return reserved;
+    }
+
+    /**
+     * Gives stock of a product back.
+     *
+     * @param productId the product
+     * @param quantity  the number of units to give back; nothing happens unless positive
+     */
+    public void release(Long productId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        List<StockLevelView> stock = productRepository.releaseStock(productId, quantity);
+        if (!stock.isEmpty()) {
+            publish(productId, stock.get(0));
+        }
+        counters(productId).releases.increment();
+    }
+
+    /**
+     * Changes the stock of a product by an admin adjustment: a positive quantity adds delivered
+     * units, a negative one writes units off, only if that many are left. Adjustments are not
+     * counted as reservations.
+     *
+     * @param productId the product
+     * @param quantity  the change of the stock, not zero
+     * @return the stock now left, or empty if the product does not exist or has fewer units than
+     * written off
+     */
+    public Optional<Integer> adjust(Long productId, int quantity) {
+        List<StockLevelView> stock = quantity > 0
+                ? productRepository.releaseStock(productId, quantity)
+                : productRepository.reserveStock(productId, -quantity);
+        if (stock.isEmpty()) {
+            return Optional.empty();
+        }
+        publish(productId, stock.get(0));
+        return Optional.of(stock.get(0).getQuantity());
+    }
+
+    private void publish(Long productId, StockLevelView stock) {
+        eventPublisher.publishEvent(new StockChangedEvent(productId, stock.getCategoryId(), stock.getQuantity()));
+    }
+
+    /**
+     * @return the stock currently left for the product, or 0 if it does not exist
+     */
+    public int available(Long productId) {
+        return productRepository.findQuantityByProductId(productId).orElse(0);
+    }
+
+    private Counters counters(Long productId) {
+        Counters productCounters = counters.get(productId);
+        if (productCounters != null) {
+            return productCounters;
+        }
+        // Keep memory bounded: once enough products are tracked, the rest share one bucket
+        if (counters.size() >= MAX_TRACKED_PRODUCTS) {
+            return untracked;
+        }
+        return counters.computeIfAbsent(productId, id -> new Counters());
+    }
+
+    /**
+     * Returns the totals and the products with the most time spent reserving.
+     *
+     * @param limit the number of products to list
+     * @return the reservation statistics
+     */
+    public ReservationStats stats(int limit) {
+        long reservations = untracked.reservations.sum();
+        long rejections = untracked.rejections.sum();
+        long releases = untracked.releases.sum();
+        for (Counters productCounters : counters.values()) {
+            reservations += productCounters.reservations.sum();
+            rejections += productCounters.rejections.sum();
+            releases += productCounters.releases.sum();
+        }
+        List<ProductContention> hottest = counters.entrySet().stream()
+                .map(entry -> entry.getValue().toContention(entry.getKey()))
+                .sorted(Comparator.comparingDouble(ProductContention::totalWaitMillis).reversed())
+                .limit(Math.max(0, limit))
+                .toList();
+        return new ReservationStats(reservations, rejections, releases, counters.size(), hottest);
+    }
+
+    private static final class Counters {
+        private final LongAdder reservations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder releases = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private ProductContention toContention(Long productId) {
+            long attempts = reservations.sum() + rejections.sum();
+            double totalWaitMillis = waitNanos.sum() / 1_000_000.0;
+            return new ProductContention(productId, reservations.sum(), rejections.sum(), releases.sum(),
+                    totalWaitMillis, attempts == 0 ? 0.0 : totalWaitMillis / attempts, maxWaitNanos.get() / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Reservation counters of one product.
+     */
+    public record ProductContention(Long productId, long reservations, long rejections, long releases,
+                                    double totalWaitMillis, double averageWaitMillis, double maxWaitMillis) {
+    }
+
+    /**
+     * Point-in-time view of the reservation counters.
+     */
+    public record ReservationStats(long reservations, long rejections, long releases, int trackedProducts,
+                                   List<ProductContention> hottest) {
+    }
+}
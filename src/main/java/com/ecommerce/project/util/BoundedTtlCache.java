@@ -0,0 +1,220 @@
+package com.ecommerce.project.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * Small in-process cache bounded both by entry count and by time-to-live.
+ * <p>
+ * Entries are kept in access order, so once {@code maxSize} is exceeded the least recently used
+ * entry is evicted. Expired entries are dropped lazily when they are read or when a cleanup pass runs.
+ * Hit, miss, eviction and expiration counters are kept so the cache can be sized from real traffic.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final boolean refreshOnAccess;
+
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Creates a cache whose entries expire a fixed time after they were written.
+     *
+     * @param maxSize   the maximum number of entries held at once
+     * @param ttlMillis the time-to-live of an entry in milliseconds
+     */
+    public BoundedTtlCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, false);
+    }
+
+    /**
+     * Creates a cache bounded by size and time.
+     *
+     * @param maxSize         the maximum number of entries held at once
+     * @param ttlMillis       the time-to-live of an entry in milliseconds
+     * @param refreshOnAccess if true, every read pushes the expiry forward (idle eviction)
+     */
+    public BoundedTtlCache(int maxSize, long ttlMillis, boolean refreshOnAccess) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.refreshOnAccess = refreshOnAccess;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, or null if it is absent or expired.
+     *
+     * @param key the cache key
+     * @return the cached value, or null
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (entry.expiresAt <= now) {
+            entries.remove(key);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        if (refreshOnAccess) {
+            entry.expiresAt = now + ttlMillis;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Stores a value using the cache-wide time-to-live.
+     *
+     * @param key   the cache key
+     * @param value the value to cache
+     */
+    public void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * Stores a value with its own time-to-live, capped at the cache-wide time-to-live.
+     *
+     * @param key       the cache key
+     * @param value     the value to cache
+     * @param ttlMillis the time-to-live of this entry in milliseconds
+     */
+    public synchronized void put(K key, V value, long ttlMillis) {
+        long ttl = Math.min(ttlMillis, this.ttlMillis);
+        if (ttl <= 0) {
+            return;
+        }
+        entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Replaces the value of a live entry, but only if it still holds the expected instance.
+     * Lets a writer publish a value derived from what it read without overwriting a newer one.
+     *
+     * @param key      the cache key
+     * @param expected the value the new one was derived from
+     * @param value    the new value
+     * @return true if the value was replaced
+     */
+    public synchronized boolean replace(K key, V expected, V value) {
+        CacheEntry<V> entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry == null || entry.value != expected || entry.expiresAt <= now) {
+            return false;
+        }
+        entries.put(key, new CacheEntry<>(value, now + ttlMillis));
+        return true;
+    }
+
+    /**
+     * Removes a single entry.
+     *
+     * @param key the cache key
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry matching the predicate.
+     *
+     * @param predicate test applied to each key and value
+     * @return the number of entries removed
+     */
+    public synchronized int invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        int removed = 0;
+        Iterator<Map.Entry<K, CacheEntry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, CacheEntry<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Drops every expired entry.
+     */
+    public synchronized void cleanUp() {
+        long now = System.currentTimeMillis();
+        Iterator<CacheEntry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+                expirations.increment();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return the current cache statistics
+     */
+    public CacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        double hitRatio = requests == 0 ? 0.0 : (double) hitCount / requests;
+        return new CacheStats(hitCount, missCount, evictions.sum(), expirations.sum(), size(), maxSize, hitRatio);
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private long expiresAt;
+
+        private CacheEntry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Point-in-time view of the cache counters.
+     */
+    public record CacheStats(long hits, long misses, long evictions, long expirations,
+                             int size, int maxSize, double hitRatio) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.jwt.security.services.UserDetailsImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * The user of the current request, resolved once per request.
+ * <p>
+ * The id, username and email come from the authenticated principal, which the auth filter builds
+ * from the token claims, so reading them costs no query. Only a principal of another kind is looked
+ * up by username, once. The user entity is handed out as a lazy reference: it is loaded only if a
+ * write actually reads its state.
+ */
+@Component
+@RequestScope
+public class CurrentUserContext {
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserDetailsImpl principal;
+    private User user;
+
+    public Long userId() {
+        return principal().getId();
+    }
+
+    public String username() {
+        return principal().getUsername();
+    }
+
+    public String email() {
+        return principal().getEmail();
+    }
+
+    /**
+     * @return a lazy reference to the user entity, loaded on first access to its state
+     */
+    public User user() {
+        if (user == null) {
+            user = userRepository.getReferenceById(userId());
+        }
+        return user;
+    }
+
+    private UserDetailsImpl principal() {
+        if (principal == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails && userDetails.getId() != null) {
+                principal = userDetails;
+            } else {
+                User loaded = userRepository.findByUserName(authentication.getName())
+                        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + authentication.getName()));
+                principal = UserDetailsImpl.build(loaded);
+                user = loaded;
+            }
+        }
+        return principal;
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.exceptions.APIException;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Encodes keyset scroll positions as opaque continuation tokens and back.
+ * <p>
+ * A token carries the sort key values of the last row of a page (the sort property plus the
+ * entity id). Values are converted back to the entity field types when decoded so the seek
+ * predicate binds with the right parameter types. A token must carry exactly those two keys, and
+ * both must be basic fields: associations cannot be compared in a seek predicate, and without the
+ * id tiebreaker rows with equal sort values would be skipped.
+ */
+public final class KeysetCursor {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Encodes a keyset position as an opaque token.
+     *
+     * @param position the position of the last row returned
+     * @return the continuation token
+     */
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+        StringJoiner joiner = new StringJoiner("&");
+        keyset.getKeys().forEach((name, value) -> {
+            String encodedName = URLEncoder.encode(name, StandardCharsets.UTF_8);
+            joiner.add(value == null
+                    ? encodedName
+                    : encodedName + "=" + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8));
+        });
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode(ScrollPosition)}. A blank token is the start of the listing.
+     *
+     * @param cursor     the continuation token sent by the client
+     * @param entityType the entity being scrolled, used to restore key value types
+     * @param sortBy     the property the listing is sorted by; the token must carry it and the id
+     * @return the scroll position to continue from
+     * @throws APIException if the token is malformed or carries other keys
+     */
+    public static ScrollPosition decode(String cursor, Class<?> entityType, String sortBy) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        // Sorting by the id itself needs no separate tiebreaker
+        Set<String> expectedKeys = new HashSet<>(List.of(sortBy, idProperty(entityType)));
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String pair : decoded.split("&")) {
+                int separator = pair.indexOf('=');
+                String name = URLDecoder.decode(separator < 0 ? pair : pair.substring(0, separator), StandardCharsets.UTF_8);
+                if (!expectedKeys.contains(name) || keys.containsKey(name)) {
+                    throw new APIException("Cursor does not match the requested sort!");
+                }
+                Field field = ReflectionUtils.findField(entityType, name);
+                if (field == null || !isBasic(field)) {
+                    throw new APIException("Invalid cursor!");
+                }
+                Object value = null;
+                if (separator >= 0) {
+                    String raw = URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+                    value = CONVERSION_SERVICE.convert(raw, ClassUtils.resolvePrimitiveIfNecessary(field.getType()));
+                }
+                keys.put(name, value);
+            }
+            if (!keys.keySet().equals(expectedKeys)) {
+                throw new APIException("Cursor does not match the requested sort!");
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | ConversionException e) {
+            throw new APIException("Invalid cursor!");
+        }
+    }
+
+    private static String idProperty(Class<?> entityType) {
+        for (Class<?> type = entityType; type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Id.class)) {
+                    return field.getName();
+                }
+            }
+        }
+        throw new IllegalArgumentException(entityType.getSimpleName() + " has no id property");
+    }
+
+    private static boolean isBasic(Field field) {
+        return !(field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)
+                || field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToMany.class)
+                || Collection.class.isAssignableFrom(field.getType()) || Map.class.isAssignableFrom(field.getType()));
+    }
+}
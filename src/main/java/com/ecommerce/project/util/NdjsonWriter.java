@@ -0,0 +1,53 @@
+package com.ecommerce.project.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes objects as newline delimited JSON (one JSON document per line) to a stream.
+ * <p>
+ * Rows go through a single buffered generator and the stream is flushed every
+ * {@code flushEvery} rows, so memory use does not depend on the number of rows written.
+ * Closing the writer flushes it but leaves the underlying stream open.
+ */
+public class NdjsonWriter implements AutoCloseable {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+    private final int flushEvery;
+    private long rows;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream, int flushEvery) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.flushEvery = flushEvery;
+    }
+
+    public void write(Object row) throws IOException {
+        writer.writeValue(generator, row);
+        generator.writeRaw('\n');
+        if (++rows % flushEvery == 0) {
+            generator.flush();
+        }
+    }
+
+    /**
+     * @return the number of rows written so far
+     */
+    public long rows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
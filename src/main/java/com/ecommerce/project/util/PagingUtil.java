@@ -0,0 +1,57 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.constants.AppConstants;
+import com.ecommerce.project.exceptions.APIException;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Helpers shared by the paginated listing endpoints.
+ */
+public final class PagingUtil {
+
+    private PagingUtil() {
+    }
+
+    /**
+     * Builds the sort for a listing. Any order other than "asc" sorts descending.
+     *
+     * @param sortBy    the property to sort by
+     * @param sortOrder "asc" or "desc"
+     * @return the sort definition
+     */
+    public static Sort sort(String sortBy, String sortOrder) {
+        return sortOrder.equalsIgnoreCase("asc")
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+    }
+
+    /**
+     * Validates a client supplied zero based page number.
+     *
+     * @param pageNumber the requested page number
+     * @return the page number actually used
+     * @throws APIException if the page number is negative
+     */
+    public static int pageNumber(Integer pageNumber) {
+        if (pageNumber == null) {
+            return 0;
+        }
+        if (pageNumber < 0) {
+            throw new APIException("The page number must not be negative");
+        }
+        return pageNumber;
+    }
+
+    /**
+     * Clamps a client supplied page size to [1, {@link AppConstants#MAX_PAGE_SIZE}].
+     *
+     * @param pageSize the requested page size
+     * @return the page size actually used
+     */
+    public static int cappedPageSize(Integer pageSize) {
+        if (pageSize == null || pageSize < 1) {
+            return 1;
+        }
+        return Math.min(pageSize, AppConstants.MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecommerce.project.catalog;
+
+import com.ecommerce.project.payload.DTO.CategoryDTO;
+import com.ecommerce.project.payload.DTO.ProductDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTest {
+
+    private final CatalogSnapshot snapshot = CatalogSnapshot.of(1,
+            List.of(new CategoryDTO(2, "Books"), new CategoryDTO(1, "Audio")),
+            Map.of(1L, List.of(product(10L, 30.0), product(11L, 10.0)),
+                    2L, List.of(product(20L, 5.0))));
+
+    @Test
+    void sortsCategoriesAndProductsOnConstruction() {
+        assertThat(snapshot.categories(false, true, 0, 10)).extracting(CategoryDTO::getCategoryId)
+                .containsExactly(1L, 2L);
+        assertThat(snapshot.categories(true, false, 0, 10)).extracting(CategoryDTO::getCategoryName)
+                .containsExactly("Books", "Audio");
+        assertThat(snapshot.products(1L, 0, 10)).extracting(ProductDTO::getProductId).containsExactly(11L, 10L);
+        assertThat(snapshot.productCount()).isEqualTo(3);
+    }
+
+    @Test
+    void withProductAddsOrReplacesAndKeepsPriceOrder() {
+        CatalogSnapshot added = snapshot.withProduct(1L, product(12L, 20.0));
+        CatalogSnapshot repriced = added.withProduct(1L, product(10L, 1.0));
+
+        assertThat(added.products(1L, 0, 10)).extracting(ProductDTO::getProductId).containsExactly(11L, 12L, 10L);
+        assertThat(repriced.products(1L, 0, 10)).extracting(ProductDTO::getProductId).containsExactly(10L, 11L, 12L);
+        assertThat(repriced.productCount(1L)).isEqualTo(3);
+        assertThat(repriced.version()).isEqualTo(3);
+        // The snapshot it was derived from is unchanged
+        assertThat(snapshot.products(1L, 0, 10)).extracting(ProductDTO::getProductId).containsExactly(11L, 10L);
+    }
+
+    @Test
+    void withProductIgnoresUnknownCategories() {
+        assertThat(snapshot.withProduct(99L, product(1L, 1.0))).isSameAs(snapshot);
+    }
+
+    @Test
+    void withoutProductRemovesOnlyThatProduct() {
+        CatalogSnapshot removed = snapshot.withoutProduct(1L, 11L);
+
+        assertThat(removed.products(1L, 0, 10)).extracting(ProductDTO::getProductId).containsExactly(10L);
+        assertThat(removed.productCount()).isEqualTo(2);
+        assertThat(removed.withoutProduct(1L, 11L)).isSameAs(removed);
+    }
+
+    @Test
+    void withProductsAppliesAWholeImport() {
+        CatalogSnapshot imported = snapshot.withProducts(2L, List.of(product(21L, 1.0), product(20L, 50.0)));
+
+        assertThat(imported.products(2L, 0, 10)).extracting(ProductDTO::getProductId).containsExactly(21L, 20L);
+        assertThat(snapshot.withProducts(2L, List.of())).isSameAs(snapshot);
+    }
+
+    @Test
+    void withCategoryAddsOrRenamesAndWithoutCategoryDropsItsProducts() {
+        CatalogSnapshot renamed = snapshot.withCategory(new CategoryDTO(1, "Hi-Fi")).withCategory(new CategoryDTO(3, "Toys"));
+
+        assertThat(renamed.categories(false, true, 0, 10)).extracting(CategoryDTO::getCategoryName)
+                .containsExactly("Hi-Fi", "Books", "Toys");
+        assertThat(renamed.productCount(1L)).isEqualTo(2);
+        assertThat(renamed.productCount(3L)).isZero();
+
+        CatalogSnapshot deleted = renamed.withoutCategory(1L);
+        assertThat(deleted.containsCategory(1L)).isFalse();
+        assertThat(deleted.productCount(1L)).isEqualTo(-1);
+        assertThat(deleted.productCount()).isEqualTo(1);
+    }
+
+    @Test
+    void pagesFromTheEndForDescendingOrder() {
+        assertThat(snapshot.products(1L, 1, 1)).extracting(ProductDTO::getProductId).containsExactly(10L);
+        assertThat(snapshot.products(1L, 2, 1)).isEmpty();
+        assertThat(snapshot.categories(false, false, 0, 1)).extracting(CategoryDTO::getCategoryId).containsExactly(2L);
+    }
+
+    @Test
+    void sameContentIgnoresVersionsButNotData() {
+        CatalogSnapshot reloaded = CatalogSnapshot.of(42,
+                List.of(new CategoryDTO(1, "Audio"), new CategoryDTO(2, "Books")),
+                Map.of(1L, List.of(product(11L, 10.0), product(10L, 30.0)),
+                        2L, List.of(product(20L, 5.0))));
+
+        assertThat(snapshot.sameContent(reloaded)).isTrue();
+        assertThat(snapshot.sameContent(reloaded.withProduct(2L, product(20L, 6.0)))).isFalse();
+        assertThat(snapshot.sameContent(reloaded.withCategory(new CategoryDTO(3, "Toys")))).isFalse();
+    }
+
+    @Test
+    void withQuantityChangesOnlyTheStock() {
+        CatalogSnapshot changed = snapshot.withQuantity(1L, 10L, 0);
+
+        assertThat(changed.products(1L, 0, 10)).extracting(ProductDTO::getProductId).containsExactly(11L, 10L);
+        assertThat(changed.products(1L, 1, 1).get(0).getQuantity()).isZero();
+        assertThat(snapshot.products(1L, 1, 1).get(0).getQuantity()).isEqualTo(5);
+        assertThat(changed.withQuantity(1L, 10L, 0)).isSameAs(changed);
+        assertThat(snapshot.withQuantity(2L, 10L, 0)).isSameAs(snapshot);
+    }
+
+    @Test
+    void derivedSnapshotsKeepTheFingerprintOfTheirContent() {
+        CatalogSnapshot derived = snapshot.withProduct(1L, product(12L, 20.0))
+                .withQuantity(1L, 10L, 3)
+                .withProducts(2L, List.of(product(21L, 1.0), product(20L, 8.0)))
+                .withoutProduct(1L, 11L)
+                .withCategory(new CategoryDTO(2, "Paperbacks"))
+                .withCategory(new CategoryDTO(3, "Toys"))
+                .withoutCategory(3L);
+        ProductDTO restocked = product(10L, 30.0);
+        restocked.setQuantity(3);
+        CatalogSnapshot built = CatalogSnapshot.of(1,
+                List.of(new CategoryDTO(1, "Audio"), new CategoryDTO(2, "Paperbacks")),
+                Map.of(1L, List.of(restocked, product(12L, 20.0)),
+                        2L, List.of(product(20L, 8.0), product(21L, 1.0))));
+
+        assertThat(derived.fingerprint()).isEqualTo(built.fingerprint());
+        assertThat(derived.sameContent(built)).isTrue();
+        assertThat(derived.fingerprint()).isNotEqualTo(snapshot.fingerprint());
+        assertThat(snapshot.withQuantity(1L, 10L, 4).fingerprint()).isNotEqualTo(snapshot.fingerprint());
+    }
+
+    @Test
+    void pagesHoldCopiesThatCallersMayModify() {
+        snapshot.products(1L, 0, 10).get(0).setQuantity(99);
+        snapshot.categories(false, true, 0, 10).get(0).setCategoryName("Changed");
+
+        assertThat(snapshot.products(1L, 0, 10).get(0).getQuantity()).isEqualTo(5);
+        assertThat(snapshot.categories(false, true, 0, 10).get(0).getCategoryName()).isEqualTo("Audio");
+    }
+
+    @Test
+    void rejectsNegativePagesAndEmptyPageSizes() {
+        assertThatThrownBy(() -> snapshot.products(1L, -1, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> snapshot.categories(false, true, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ProductDTO product(Long productId, double price) {
+        return new ProductDTO(productId, "Product " + productId, "Description", "default.png", 5, price, 0, price);
+    }
+}
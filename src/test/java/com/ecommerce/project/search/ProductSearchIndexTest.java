@@ -0,0 +1,84 @@
+package com.ecommerce.project.search;
+
+import com.ecommerce.project.exceptions.APIException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        index.index(1L, "Leather wallet", "A wallet with a phone pocket");
+        index.index(2L, "Phone case", "Fits most models");
+
+        ProductSearchHits hits = index.search("phone", 0, 10);
+
+        assertThat(hits.productIds()).containsExactly(2L, 1L);
+        assertThat(hits.totalHits()).isEqualTo(2);
+    }
+
+    @Test
+    void requiresEveryTermAndMatchesPrefixes() {
+        index.index(1L, "Wireless headphones", "Noise cancelling");
+        index.index(2L, "Wired headphones", "Studio monitor");
+
+        assertThat(index.search("wire head", 0, 10).productIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("wireless head", 0, 10).productIds()).containsExactly(1L);
+        assertThat(index.search("wireless studio", 0, 10).productIds()).isEmpty();
+    }
+
+    @Test
+    void ordersEqualScoresByProductIdIncludingIdsBeyond32Bits() {
+        long large = 5_000_000_000L;
+        index.index(large, "Desk lamp", "Warm light");
+        index.index(3L, "Desk lamp", "Warm light");
+        index.index(large + 1, "Desk lamp", "Warm light");
+
+        assertThat(index.search("lamp", 0, 10).productIds()).containsExactly(3L, large, large + 1);
+    }
+
+    @Test
+    void cursorPagesVisitEveryHitOnceAcrossEqualScores() {
+        for (long id = 1; id <= 25; id++) {
+            index.index(id * 1_000_000_000L, "Coffee mug " + id, "Ceramic");
+        }
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductSearchHits page = index.searchAfter("coffee", cursor, 7);
+            for (long productId : page.productIds()) {
+                seen.add(productId);
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(25).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void removedProductsAreNotReturned() {
+        index.index(1L, "Table", "Oak");
+        index.index(2L, "Table", "Pine");
+        index.remove(1L);
+
+        ProductSearchHits hits = index.search("table", 0, 10);
+
+        assertThat(hits.productIds()).containsExactly(2L);
+        assertThat(hits.totalHits()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        index.index(1L, "Table", "Oak");
+
+        assertThatThrownBy(() -> index.searchAfter("table", "zzz", 10)).isInstanceOf(APIException.class);
+        assertThatThrownBy(() -> index.searchAfter("table", "a.!", 10)).isInstanceOf(APIException.class);
+    }
+}
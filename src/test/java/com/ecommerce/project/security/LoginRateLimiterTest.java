@@ -0,0 +1,93 @@
+package com.ecommerce.project.security;
+
+import com.ecommerce.project.exceptions.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginRateLimiterTest {
+
+    @Test
+    void rejectsAnAddressOnceItsBucketIsEmpty() {
+        LoginRateLimiter limiter = new LoginRateLimiter(16, 2, 1, 100, 100);
+
+        limiter.acquire("10.0.0.1", null);
+        limiter.acquire("10.0.0.1", null);
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", null))
+                .isInstanceOfSatisfying(TooManyRequestsException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(60));
+        assertThat(limiter.stats()).containsEntry("allowed", 2L).containsEntry("rejectedByIp", 1L);
+    }
+
+    @Test
+    void limitsFailedSignInsOfAUsernameFromAnAddressIgnoringCase() {
+        LoginRateLimiter limiter = new LoginRateLimiter(1024, 100, 100, 2, 1);
+
+        limiter.acquire("10.0.0.1", "Alice");
+        limiter.recordFailure("10.0.0.1", "Alice");
+        limiter.acquire("10.0.0.1", "alice");
+        limiter.recordFailure("10.0.0.1", "alice");
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "ALICE"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessageContaining("this user");
+        assertThat(limiter.stats()).containsEntry("rejectedByUsername", 1L).containsEntry("failures", 2L);
+    }
+
+    @Test
+    void failuresFromOneAddressDoNotLockTheUserOutElsewhere() {
+        LoginRateLimiter limiter = new LoginRateLimiter(1024, 100, 100, 1, 1);
+
+        limiter.acquire("10.0.0.1", "alice");
+        limiter.recordFailure("10.0.0.1", "alice");
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "alice")).isInstanceOf(TooManyRequestsException.class);
+        assertThatCode(() -> limiter.acquire("10.0.0.2", "alice")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void successfulSignInsDoNotCountAgainstTheUser() {
+        LoginRateLimiter limiter = new LoginRateLimiter(1024, 100, 100, 1, 1);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("10.0.0.1", "alice");
+        }
+
+        assertThat(limiter.stats()).containsEntry("allowed", 5L).containsEntry("rejectedByUsername", 0L);
+    }
+
+    @Test
+    void refillsTokensOverTime() throws InterruptedException {
+        // One token every 100 ms
+        LoginRateLimiter limiter = new LoginRateLimiter(16, 1, 600, 100, 100);
+
+        limiter.acquire("10.0.0.1", null);
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", null)).isInstanceOf(TooManyRequestsException.class);
+
+        Thread.sleep(150);
+
+        assertThatCode(() -> limiter.acquire("10.0.0.1", null)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", null)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void neverRefillsAboveTheCapacity() throws InterruptedException {
+        // One token every 100 ms, so the sleep alone would add two more without the cap
+        LoginRateLimiter limiter = new LoginRateLimiter(16, 2, 600, 100, 100);
+
+        Thread.sleep(250);
+
+        limiter.acquire("10.0.0.1", null);
+        limiter.acquire("10.0.0.1", null);
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", null)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void requiresAPowerOfTwoStripeCount() {
+        assertThatThrownBy(() -> new LoginRateLimiter(100, 20, 20, 5, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.project.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseCookie;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "mySecretKey12377657c2VjcmV0a2V5MTIzIT8kQCVEa2pYUmVuZEVuY29kZWQ=";
+    private static final String COOKIE = "guestCart";
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils(SECRET, 100, 300);
+        ReflectionTestUtils.setField(jwtUtils, "guestCartCookie", COOKIE);
+        ReflectionTestUtils.setField(jwtUtils, "guestCartExpirationMs", 60_000L);
+    }
+
+    @Test
+    void guestCartSurvivesTheCookieInOrder() {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        lines.put(42L, 2);
+        lines.put(7L, 1);
+        lines.put(5_000_000_000L, 3);
+
+        ResponseCookie cookie = jwtUtils.generateGuestCartCookie(lines);
+
+        assertThat(cookie.isHttpOnly()).isTrue();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(cookie.getValue())))
+                .containsExactly(Map.entry(42L, 2), Map.entry(7L, 1), Map.entry(5_000_000_000L, 3));
+    }
+
+    @Test
+    void emptyGuestCartClearsTheCookie() {
+        ResponseCookie cookie = jwtUtils.generateGuestCartCookie(Map.of());
+
+        assertThat(cookie.getValue()).isEmpty();
+        assertThat(cookie.getMaxAge().isZero()).isTrue();
+    }
+
+    @Test
+    void missingOrTamperedGuestCartIsEmpty() {
+        String token = jwtUtils.generateGuestCartCookie(Map.of(1L, 1)).getValue();
+        String other = jwtUtils.generateGuestCartCookie(Map.of(1L, 99)).getValue();
+        // The lines of one cookie with the signature of another
+        String tampered = other.substring(0, other.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+
+        assertThat(jwtUtils.getGuestCartFromCookies(new MockHttpServletRequest())).isEmpty();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(""))).isEmpty();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(tampered))).isEmpty();
+    }
+
+    @Test
+    void guestCartSignedWithTheLoginKeyIsRejected() {
+        SecretKey loginKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+
+        assertThat(jwtUtils.getGuestCartFromCookies(request(signed(loginKey, "1:1")))).isEmpty();
+    }
+
+    @Test
+    void malformedGuestCartLinesAreRejected() {
+        SecretKey guestCartKey = guestCartKey();
+        StringJoiner tooMany = new StringJoiner(",");
+        for (int i = 1; i <= 51; i++) {
+            tooMany.add(i + ":1");
+        }
+
+        assertThat(jwtUtils.getGuestCartFromCookies(request(signed(guestCartKey, "1:2,x:1")))).isEmpty();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(signed(guestCartKey, "1:0")))).isEmpty();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(signed(guestCartKey, ":3")))).isEmpty();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(signed(guestCartKey, "1")))).isEmpty();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(signed(guestCartKey, tooMany.toString())))).isEmpty();
+        assertThat(jwtUtils.getGuestCartFromCookies(request(signed(guestCartKey, "3:1,3:4"))))
+                .containsExactly(Map.entry(3L, 4));
+    }
+
+    @Test
+    void verifyReturnsTheClaimsOfValidTokensOnly() {
+        SecretKey loginKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        String token = Jwts.builder()
+                .subject("user1")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(loginKey)
+                .compact();
+
+        assertThat(jwtUtils.verify(token).getSubject()).isEqualTo("user1");
+        // Answered from the verified-token cache the second time
+        assertThat(jwtUtils.verify(token).getSubject()).isEqualTo("user1");
+        assertThat(jwtUtils.verifiedTokenStats().hits()).isEqualTo(1);
+
+        assertThat(jwtUtils.verify(token + "x")).isNull();
+        assertThat(jwtUtils.verify(signed(guestCartKey(), "1:1"))).isNull();
+    }
+
+    private SecretKey guestCartKey() {
+        return (SecretKey) ReflectionTestUtils.getField(jwtUtils, "guestCartKey");
+    }
+
+    private static String signed(SecretKey key, String lines) {
+        return Jwts.builder()
+                .claim("lines", lines)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key)
+                .compact();
+    }
+
+    private static MockHttpServletRequest request(String cookieValue) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(COOKIE, cookieValue));
+        return request;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.projection.CartLineView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartAggregateCacheTest {
+
+    private static final long USER_ID = 7L;
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final CartAggregateCache cache = new CartAggregateCache(100, 60);
+    private CartAggregate loaded;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "cartRepository", cartRepository);
+        when(cartRepository.lockCartVersionByUserId(USER_ID)).thenReturn(Optional.of(1L));
+        when(cartRepository.findCartLinesByUserId(USER_ID))
+                .thenReturn(List.of(new CartLineView(3L, 1L, 10.0, 10L, 1, 10.0, 0.0)));
+        loaded = cache.getForUpdate(USER_ID);
+    }
+
+    @Test
+    void publishesTheUpdatedCartOnCommit() {
+        CartAggregate updated = loaded.withLine(20L, 1, 5.0, 0.0, 15.0).withVersion(2);
+
+        complete(() -> cache.putAfterCommit(loaded, updated), TransactionSynchronization.STATUS_COMMITTED);
+
+        when(cartRepository.lockCartVersionByUserId(USER_ID)).thenReturn(Optional.of(2L));
+        assertThat(cache.getForUpdate(USER_ID)).isSameAs(updated);
+        verify(cartRepository, times(1)).findCartLinesByUserId(USER_ID);
+    }
+
+    @Test
+    void dropsTheCartOnRollback() {
+        CartAggregate updated = loaded.withLine(20L, 1, 5.0, 0.0, 15.0).withVersion(2);
+
+        complete(() -> cache.putAfterCommit(loaded, updated), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void dropsTheCartWhenAnotherWriterPublishedFirst() {
+        CartAggregate first = loaded.withLine(20L, 1, 5.0, 0.0, 15.0).withVersion(2);
+        CartAggregate second = loaded.withLine(30L, 1, 5.0, 0.0, 15.0).withVersion(3);
+
+        complete(() -> cache.putAfterCommit(loaded, first), TransactionSynchronization.STATUS_COMMITTED);
+        complete(() -> cache.putAfterCommit(loaded, second), TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void cachesANewCartOnCommitOnly() {
+        CartAggregate created = CartAggregate.empty(4L, 8L);
+
+        complete(() -> cache.putAfterCommit(null, created), TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(cache.stats().size()).isEqualTo(1);
+
+        complete(() -> cache.putAfterCommit(null, created), TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void reloadsACachedCartWhoseVersionMoved() {
+        when(cartRepository.lockCartVersionByUserId(USER_ID)).thenReturn(Optional.of(5L));
+        when(cartRepository.findCartLinesByUserId(USER_ID))
+                .thenReturn(List.of(new CartLineView(3L, 5L, 0.0, null, null, null, null)));
+
+        CartAggregate reloaded = cache.getForUpdate(USER_ID);
+
+        assertThat(reloaded).isNotSameAs(loaded);
+        assertThat(reloaded.version()).isEqualTo(5L);
+        assertThat(reloaded.size()).isZero();
+    }
+
+    // Runs a write inside a simulated transaction and completes it with the given status
+    private static void complete(Runnable write, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            write.run();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(status);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.repositories.projection.CartLineView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartAggregateTest {
+
+    private final CartAggregate cart = CartAggregate.of(7L, List.of(
+            line(30L, 3, 30.0),
+            line(10L, 1, 10.0),
+            line(20L, 2, 20.0)));
+
+    @Test
+    void ofSortsLinesByProductId() {
+        assertThat(cart.productIds()).containsExactly(10L, 20L, 30L);
+        assertThat(cart.quantityAt(cart.indexOf(30L))).isEqualTo(3);
+        assertThat(cart.priceAt(cart.indexOf(20L))).isEqualTo(20.0);
+        assertThat(cart.cartId()).isEqualTo(1L);
+        assertThat(cart.userId()).isEqualTo(7L);
+        assertThat(cart.version()).isEqualTo(4L);
+        assertThat(cart.totalPrice()).isEqualTo(140.0);
+    }
+
+    @Test
+    void ofReadsACartWithoutLinesFromItsNullProductRow() {
+        CartAggregate empty = CartAggregate.of(7L, List.of(new CartLineView(1L, 0L, null, null, null, null, null)));
+
+        assertThat(empty.size()).isZero();
+        assertThat(empty.cartId()).isEqualTo(1L);
+        assertThat(empty.totalPrice()).isZero();
+        assertThat(empty.contains(10L)).isFalse();
+        assertThat(CartAggregate.of(7L, List.of())).isNull();
+    }
+
+    @Test
+    void withLineInsertsAtHeadMiddleAndTail() {
+        CartAggregate head = cart.withLine(5L, 5, 5.0, 0.0, 165.0);
+        CartAggregate middle = cart.withLine(25L, 6, 25.0, 10.0, 290.0);
+        CartAggregate tail = cart.withLine(40L, 7, 40.0, 0.0, 420.0);
+
+        assertThat(head.productIds()).containsExactly(5L, 10L, 20L, 30L);
+        assertThat(middle.productIds()).containsExactly(10L, 20L, 25L, 30L);
+        assertThat(tail.productIds()).containsExactly(10L, 20L, 30L, 40L);
+        assertLine(head, 5L, 5, 5.0, 0.0);
+        assertLine(head, 30L, 3, 30.0, 0.0);
+        assertLine(middle, 25L, 6, 25.0, 10.0);
+        assertLine(middle, 30L, 3, 30.0, 0.0);
+        assertLine(tail, 40L, 7, 40.0, 0.0);
+        assertThat(tail.totalPrice()).isEqualTo(420.0);
+        assertThat(tail.version()).isEqualTo(cart.version());
+        // The aggregate the lines were added to is unchanged
+        assertThat(cart.productIds()).containsExactly(10L, 20L, 30L);
+    }
+
+    @Test
+    void withLineReplacesAnExistingLine() {
+        CartAggregate updated = cart.withLine(20L, 9, 18.0, 10.0, 302.0);
+
+        assertThat(updated.productIds()).containsExactly(10L, 20L, 30L);
+        assertLine(updated, 20L, 9, 18.0, 10.0);
+        assertLine(cart, 20L, 2, 20.0, 0.0);
+    }
+
+    @Test
+    void withoutLineRemovesOnlyThatLine() {
+        CartAggregate withoutMiddle = cart.withoutLine(20L, 100.0);
+        CartAggregate withoutTail = cart.withoutLine(30L, 50.0);
+
+        assertThat(withoutMiddle.productIds()).containsExactly(10L, 30L);
+        assertLine(withoutMiddle, 30L, 3, 30.0, 0.0);
+        assertThat(withoutMiddle.totalPrice()).isEqualTo(100.0);
+        assertThat(withoutTail.productIds()).containsExactly(10L, 20L);
+        assertLine(withoutTail, 20L, 2, 20.0, 0.0);
+        assertThat(cart.withoutLine(99L, 1.0).productIds()).containsExactly(10L, 20L, 30L);
+    }
+
+    @Test
+    void withoutLineCanEmptyTheCart() {
+        CartAggregate single = CartAggregate.empty(1L, 7L).withLine(10L, 1, 10.0, 0.0, 10.0);
+
+        CartAggregate empty = single.withoutLine(10L, 0.0);
+
+        assertThat(empty.size()).isZero();
+        assertThat(empty.indexOf(10L)).isNegative();
+        assertThat(empty.withLine(10L, 2, 10.0, 0.0, 20.0).productIds()).containsExactly(10L);
+    }
+
+    private static void assertLine(CartAggregate cart, long productId, int quantity, double price, double discount) {
+        int index = cart.indexOf(productId);
+        assertThat(index).isNotNegative();
+        assertThat(cart.quantityAt(index)).isEqualTo(quantity);
+        assertThat(cart.priceAt(index)).isEqualTo(price);
+        assertThat(cart.discountAt(index)).isEqualTo(discount);
+    }
+
+    private static CartLineView line(Long productId, int quantity, double price) {
+        return new CartLineView(1L, 4L, 140.0, productId, quantity, price, 0.0);
+    }
+}
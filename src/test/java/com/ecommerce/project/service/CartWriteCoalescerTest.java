@@ -0,0 +1,178 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.DTO.CartDTO;
+import com.ecommerce.project.util.CurrentUserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CartWriteCoalescerTest {
+
+    private static final long USER_ID = 1L;
+
+    private final CartService cartService = mock(CartService.class);
+    private final List<List<CartService.QuantityChange>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch batchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseBatch = new CountDownLatch(1);
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+    private volatile FailureRule failureRule = changes -> Map.of();
+    private CartWriteCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        releaseBatch.countDown();
+        clients.shutdownNow();
+        coalescer.shutdown();
+    }
+
+    @Test
+    void keepsArrivalOrderAcrossBackToBackBatches() throws Exception {
+        coalescer = coalescer(10, 5_000);
+
+        Future<CartDTO> first = click(1L, 1);
+        assertThat(batchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // Queued while the first batch is written, in this order
+        Future<CartDTO> second = click(3L, 1);
+        Future<CartDTO> third = click(2L, -1);
+        Future<CartDTO> fourth = click(3L, -1);
+        releaseBatch.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getCartId()).isEqualTo(1L);
+        assertThat(second.get(5, TimeUnit.SECONDS).getCartId()).isEqualTo(2L);
+        assertThat(third.get(5, TimeUnit.SECONDS).getCartId()).isEqualTo(2L);
+        assertThat(fourth.get(5, TimeUnit.SECONDS).getCartId()).isEqualTo(2L);
+        assertThat(batches).containsExactly(
+                List.of(new CartService.QuantityChange(1L, 1)),
+                List.of(new CartService.QuantityChange(3L, 1), new CartService.QuantityChange(2L, -1),
+                        new CartService.QuantityChange(3L, -1)));
+        assertThat(coalescer.stats()).containsEntry("requests", 4L).containsEntry("batches", 2L);
+    }
+
+    @Test
+    void failsOnlyTheClickThatFailed() throws Exception {
+        coalescer = coalescer(10, 5_000);
+        APIException outOfStock = new APIException("Phone is not available");
+        Future<CartDTO> blocker = click(9L, 1);
+        assertThat(batchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<CartDTO> before = click(1L, 1);
+        Future<CartDTO> failing = click(2L, 1);
+        Future<CartDTO> after = click(1L, -1);
+        failureRule = changes -> {
+            Map<Integer, RuntimeException> failures = new HashMap<>();
+            for (int i = 0; i < changes.size(); i++) {
+                if (changes.get(i).productId() == 2L) {
+                    failures.put(i, outOfStock);
+                }
+            }
+            return failures;
+        };
+        releaseBatch.countDown();
+
+        assertThat(blocker.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(before.get(5, TimeUnit.SECONDS).getCartId()).isEqualTo(2L);
+        assertThat(after.get(5, TimeUnit.SECONDS).getCartId()).isEqualTo(2L);
+        assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(outOfStock);
+    }
+
+    @Test
+    void failsTheRequestWhenTheBatchTakesTooLong() throws Exception {
+        coalescer = coalescer(10, 100);
+
+        Future<CartDTO> click = click(1L, 1);
+
+        assertThatThrownBy(() -> click.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOf(APIException.class)
+                .hasMessageContaining("too long");
+        assertThat(coalescer.stats()).containsEntry("timeouts", 1L);
+    }
+
+    @Test
+    void failsQueuedClicksOnShutdown() throws Exception {
+        coalescer = coalescer(10, 5_000);
+        Future<CartDTO> running = click(1L, 1);
+        assertThat(batchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<CartDTO> queued = click(2L, 1);
+
+        Future<?> shutdown = clients.submit(coalescer::shutdown);
+        // Let the running batch finish once no new batch can be scheduled
+        Thread.sleep(100);
+        releaseBatch.countDown();
+        shutdown.get(5, TimeUnit.SECONDS);
+
+        assertThat(running.get(5, TimeUnit.SECONDS).getCartId()).isEqualTo(1L);
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOf(APIException.class)
+                .hasMessageContaining("cannot be updated right now");
+        // Clicks arriving after shutdown fail straight away
+        assertThatThrownBy(() -> click(3L, 1).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .hasMessageContaining("cannot be updated right now");
+        assertThat(batches).hasSize(1);
+    }
+
+    private CartWriteCoalescer coalescer(long windowMillis, long timeoutMillis) {
+        CurrentUserContext currentUser = mock(CurrentUserContext.class);
+        when(currentUser.userId()).thenReturn(USER_ID);
+        CartWriteCoalescer coalescer = new CartWriteCoalescer(true, windowMillis, timeoutMillis, 2);
+        ReflectionTestUtils.setField(coalescer, "cartService", cartService);
+        ReflectionTestUtils.setField(coalescer, "currentUser", currentUser);
+        // The first batch waits for releaseBatch; every batch answers with a cart whose id is its number
+        when(cartService.applyQuantityChanges(eq(USER_ID), anyList())).thenAnswer(invocation -> {
+            List<CartService.QuantityChange> changes = new ArrayList<>(invocation.getArgument(1));
+            batches.add(changes);
+            if (batches.size() == 1) {
+                batchStarted.countDown();
+                releaseBatch.await();
+            }
+            CartDTO cart = new CartDTO((long) batches.size(), 0.0, new ArrayList<>());
+            return new CartService.QuantityChangeResult(cart, failureRule.apply(changes));
+        });
+        return coalescer;
+    }
+
+    // Each click runs on its own thread, like a request; returns once the click is queued
+    private Future<CartDTO> click(Long productId, int delta) throws InterruptedException {
+        long queued = (long) coalescer.stats().get("requests");
+        Future<CartDTO> result = clients.submit(() -> coalescer.updateProductQuantity(productId, delta));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) coalescer.stats().get("requests") == queued && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // The click is counted just before it is queued
+        Thread.sleep(20);
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface FailureRule {
+        Map<Integer, RuntimeException> apply(List<CartService.QuantityChange> changes);
+    }
+}
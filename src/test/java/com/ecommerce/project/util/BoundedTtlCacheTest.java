@@ -0,0 +1,136 @@
+package com.ecommerce.project.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedTtlCacheTest {
+
+    @Test
+    void returnsCachedValuesAndCountsHitsAndMisses() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 60_000);
+        cache.put("a", "1");
+
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+
+        BoundedTtlCache.CacheStats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.size()).isEqualTo(1);
+        assertThat(stats.hitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTimeToLive() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 50);
+        cache.put("a", "1");
+
+        Thread.sleep(80);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    void capsPerEntryTimeToLiveAndIgnoresNonPositiveOnes() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 50);
+        cache.put("capped", "1", 60_000);
+        cache.put("expired", "2", 0);
+
+        assertThat(cache.get("expired")).isNull();
+
+        Thread.sleep(80);
+
+        assertThat(cache.get("capped")).isNull();
+    }
+
+    @Test
+    void refreshOnAccessKeepsUsedEntriesAlive() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 200, true);
+        cache.put("a", "1");
+
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(100);
+            assertThat(cache.get("a")).isEqualTo("1");
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryWhenFull() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(2, 60_000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // Reading "a" makes "b" the least recently used
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("c")).isEqualTo("3");
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void replacesOnlyTheExpectedInstance() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 60_000);
+        String original = new String("v1");
+        cache.put("a", original);
+
+        assertThat(cache.replace("a", new String("v1"), "stale")).isFalse();
+        assertThat(cache.replace("a", original, "v2")).isTrue();
+        assertThat(cache.get("a")).isEqualTo("v2");
+        assertThat(cache.replace("missing", null, "v")).isFalse();
+        assertThat(cache.get("missing")).isNull();
+    }
+
+    @Test
+    void doesNotReplaceExpiredEntries() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 50);
+        String original = "v1";
+        cache.put("a", original);
+
+        Thread.sleep(80);
+
+        assertThat(cache.replace("a", original, "v2")).isFalse();
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    void invalidatesSelectedEntries() {
+        BoundedTtlCache<Integer, String> cache = new BoundedTtlCache<>(10, 60_000);
+        for (int i = 0; i < 6; i++) {
+            cache.put(i, "v" + i);
+        }
+
+        assertThat(cache.invalidateIf((key, value) -> key % 2 == 0)).isEqualTo(3);
+        cache.invalidate(1);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(3)).isEqualTo("v3");
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void cleanUpDropsOnlyExpiredEntries() throws InterruptedException {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, 60_000);
+        cache.put("short", "1", 30);
+        cache.put("long", "2");
+
+        Thread.sleep(60);
+        cache.cleanUp();
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("long")).isEqualTo("2");
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+    }
+
+    @Test
+    void requiresAPositiveSize() {
+        assertThatThrownBy(() -> new BoundedTtlCache<>(0, 1000)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
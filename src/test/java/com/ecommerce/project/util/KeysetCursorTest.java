@@ -0,0 +1,98 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripRestoresKeysWithFieldTypes() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("price", 19.99);
+        keys.put("productId", 42L);
+
+        ScrollPosition decoded = KeysetCursor.decode(KeysetCursor.encode(ScrollPosition.forward(keys)), Product.class, "price");
+
+        assertThat(decoded).isInstanceOf(KeysetScrollPosition.class);
+        assertThat(((KeysetScrollPosition) decoded).getKeys()).containsExactlyInAnyOrderEntriesOf(keys);
+    }
+
+    @Test
+    void roundTripKeepsSpecialCharactersAndNulls() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("productName", "a&b=c ü");
+        keys.put("productId", 7L);
+        Map<String, Object> withNull = new LinkedHashMap<>();
+        withNull.put("quantity", null);
+        withNull.put("productId", 8L);
+
+        assertThat(((KeysetScrollPosition) KeysetCursor.decode(KeysetCursor.encode(ScrollPosition.forward(keys)),
+                Product.class, "productName")).getKeys()).containsExactlyInAnyOrderEntriesOf(keys);
+        assertThat(((KeysetScrollPosition) KeysetCursor.decode(KeysetCursor.encode(ScrollPosition.forward(withNull)),
+                Product.class, "quantity")).getKeys()).containsExactlyInAnyOrderEntriesOf(withNull);
+    }
+
+    @Test
+    void sortingByIdNeedsOnlyTheId() {
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(Map.of("cartId", 5L)));
+
+        assertThat(((KeysetScrollPosition) KeysetCursor.decode(cursor, Cart.class, "cartId")).getKeys())
+                .containsExactly(Map.entry("cartId", 5L));
+    }
+
+    @Test
+    void blankCursorStartsAtTheBeginning() {
+        assertThat(KeysetCursor.decode(null, Product.class, "price").isInitial()).isTrue();
+        assertThat(KeysetCursor.decode(" ", Product.class, "price").isInitial()).isTrue();
+    }
+
+    @Test
+    void rejectsCursorWithoutIdTiebreaker() {
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(Map.of("price", 10.0)));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor, Product.class, "price"))
+                .isInstanceOf(APIException.class);
+    }
+
+    @Test
+    void rejectsCursorForAnotherSort() {
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(Map.of("price", 10.0, "productId", 1L)));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor, Product.class, "productName"))
+                .isInstanceOf(APIException.class);
+    }
+
+    @Test
+    void rejectsExtraAndAssociationKeys() {
+        assertThatThrownBy(() -> KeysetCursor.decode(token("price=1.0&productId=1&discount=2.0"), Product.class, "price"))
+                .isInstanceOf(APIException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("category=1&productId=1"), Product.class, "category"))
+                .isInstanceOf(APIException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("price=1.0&price=2.0&productId=1"), Product.class, "price"))
+                .isInstanceOf(APIException.class);
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!", Product.class, "price"))
+                .isInstanceOf(APIException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode(token("price=abc&productId=1"), Product.class, "price"))
+                .isInstanceOf(APIException.class);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}